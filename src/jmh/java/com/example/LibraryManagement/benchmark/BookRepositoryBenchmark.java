@@ -0,0 +1,45 @@
+package com.example.LibraryManagement.benchmark;
+
+import com.example.LibraryManagement.models.Book;
+import com.example.LibraryManagement.models.Page;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the BookRepository lookups against a seeded catalog.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookRepositoryBenchmark {
+
+    @Benchmark
+    public Optional<Book> findBookById(LibraryState state) {
+        return state.bookRepository.findBookById(state.randomBookId());
+    }
+
+    @Benchmark
+    public boolean isAvailable(LibraryState state) {
+        return state.bookRepository.isAvailable(state.randomBookId());
+    }
+
+    @Benchmark
+    public ArrayList<Book> findBooksByTitle(LibraryState state) {
+        return state.bookRepository.findBooksByTitle(state.randomTitle());
+    }
+
+    @Benchmark
+    public ArrayList<Book> findBooksByAuthor(LibraryState state) {
+        return state.bookRepository.findBooksByAuthor(state.randomAuthor());
+    }
+
+    @Benchmark
+    public Page<Book> getBooksPage(LibraryState state) {
+        return state.bookRepository.getBooksPage(state.randomBookId(), 100);
+    }
+}
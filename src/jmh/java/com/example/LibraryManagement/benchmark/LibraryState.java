@@ -0,0 +1,143 @@
+package com.example.LibraryManagement.benchmark;
+
+import com.example.LibraryManagement.LibraryManagementMain;
+import com.example.LibraryManagement.database.BookRepository;
+import com.example.LibraryManagement.database.RentalRepository;
+import com.example.LibraryManagement.database.UserRepository;
+import com.example.LibraryManagement.models.Book;
+import com.example.LibraryManagement.models.Rental;
+import com.example.LibraryManagement.models.User;
+import com.example.LibraryManagement.security.Utils;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+/**
+ * The LibraryState class holds a seeded library shared by the benchmarks of a trial.
+ * It starts the application context without a web server on a temporary SQLite file
+ * and seeds it with catalogSize books, one user per 100 books and one rental per 10 books.
+ */
+@State(Scope.Benchmark)
+public class LibraryState {
+    /**
+     * The number of distinct authors the seeded books are spread over.
+     */
+    static final int AUTHORS = 1000;
+    /**
+     * The password of every seeded user.
+     */
+    static final String PASSWORD = "password";
+
+    /**
+     * The number of books seeded into the catalog.
+     */
+    @Param({"1000", "100000"})
+    public int catalogSize;
+
+    public int userCount;
+    public BookRepository bookRepository;
+    public UserRepository userRepository;
+    public RentalRepository rentalRepository;
+
+    private Path databaseFile;
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        databaseFile = Files.createTempFile("library-benchmark", ".sqlite");
+        // Passing the settings as command line arguments, which take precedence over application.properties
+        List<String> args = new ArrayList<>(List.of(
+                "--db.url=jdbc:sqlite:" + databaseFile,
+                "--logging.level.root=WARN"));
+        for (String property : properties()) {
+            args.add("--" + property);
+        }
+        context = new SpringApplicationBuilder(LibraryManagementMain.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(new String[0]));
+
+        bookRepository = BookRepository.getInstance();
+        userRepository = UserRepository.getInstance();
+        rentalRepository = RentalRepository.getInstance();
+
+        // The settings must reach the application, otherwise the benchmarks run against library_db.sqlite instead
+        if (Files.size(databaseFile) == 0) {
+            throw new IllegalStateException("The benchmark database was not created in " + databaseFile);
+        }
+
+        // Seeding the catalog
+        bookRepository.addBooks(IntStream.rangeClosed(1, catalogSize)
+                .mapToObj(i -> new Book("Title " + i, author(i)))
+                .iterator());
+
+        // Seeding the users
+        userCount = Math.max(10, catalogSize / 100);
+        String passwordHash = Utils.hashString(PASSWORD);
+        for (int i = 1; i <= userCount; i++) {
+            userRepository.registerUser(new User(username(i), passwordHash, false));
+        }
+
+        // Seeding the rentals, the rented books are the multiples of 10
+        for (int bookId = 10; bookId <= catalogSize; bookId += 10) {
+            rentalRepository.rentBook(new Rental(bookId, 1 + bookId % userCount));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        Files.deleteIfExists(databaseFile);
+    }
+
+    /**
+     * Returns the application properties overridden by the benchmarks using this state, on top of the database file.
+     *
+     * @return the overridden properties, as key=value pairs
+     */
+    protected String[] properties() {
+        return new String[0];
+    }
+
+    public int randomBookId() {
+        return ThreadLocalRandom.current().nextInt(1, catalogSize + 1);
+    }
+
+    public int randomUserId() {
+        return ThreadLocalRandom.current().nextInt(1, userCount + 1);
+    }
+
+    public String randomAuthor() {
+        return author(ThreadLocalRandom.current().nextInt(AUTHORS));
+    }
+
+    public String randomTitle() {
+        return "Title " + randomBookId();
+    }
+
+    public static String author(int i) {
+        return "Author " + (i % AUTHORS);
+    }
+
+    public static String username(int i) {
+        return "user" + i;
+    }
+
+    public static String basicAuthHeader(String username, String password) {
+        return "Basic " + Base64.getEncoder().encodeToString((username + ":" + password).getBytes());
+    }
+}
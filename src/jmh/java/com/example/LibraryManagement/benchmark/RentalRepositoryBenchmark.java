@@ -0,0 +1,54 @@
+package com.example.LibraryManagement.benchmark;
+
+import com.example.LibraryManagement.models.Page;
+import com.example.LibraryManagement.models.Rental;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the RentalRepository write and read paths against a seeded library.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RentalRepositoryBenchmark {
+
+    /**
+     * A book that is never rented by the seed, so every rent in the benchmark succeeds and is followed by a return.
+     */
+    @State(Scope.Thread)
+    public static class RenterState {
+        Rental rental;
+
+        @Setup(Level.Iteration)
+        public void pickBook(LibraryState state) {
+            int bookId;
+            do {
+                bookId = state.randomBookId();
+            } while (bookId % 10 == 0);
+            rental = new Rental(bookId, state.randomUserId());
+        }
+    }
+
+    @Benchmark
+    public boolean rentAndReturn(LibraryState state, RenterState renter) {
+        return state.rentalRepository.rentBook(renter.rental)
+                && state.rentalRepository.returnBook(renter.rental);
+    }
+
+    @Benchmark
+    public boolean rentUnavailableBook(LibraryState state) {
+        // The seeded rentals are the multiples of 10, so this rent always fails on the availability check
+        int rentedBookId = 10 * ThreadLocalRandom.current().nextInt(1, state.catalogSize / 10 + 1);
+        return state.rentalRepository.rentBook(new Rental(rentedBookId, state.randomUserId()));
+    }
+
+    @Benchmark
+    public Page<Rental> getRentalsPage(LibraryState state) {
+        return state.rentalRepository.getRentalsPage(state.randomBookId() / 10, 100);
+    }
+}
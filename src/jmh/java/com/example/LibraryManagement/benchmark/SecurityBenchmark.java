@@ -0,0 +1,65 @@
+package com.example.LibraryManagement.benchmark;
+
+import com.example.LibraryManagement.security.Utils;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the credential handling in Utils.
+ * The legacy benchmarks run the previous implementation, which looked up a new digest and built the strings
+ * for every call, as a baseline. Run with -prof gc to compare the bytes allocated per call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SecurityBenchmark {
+
+    private final String authHeader = LibraryState.basicAuthHeader("user1", LibraryState.PASSWORD);
+
+    @Benchmark
+    public String hashString() {
+        return Utils.hashString(LibraryState.PASSWORD);
+    }
+
+    @Benchmark
+    public String[] decodeAuthHeader() {
+        return Utils.decodeAuthHeader(authHeader);
+    }
+
+    @Benchmark
+    public String legacyHashString() {
+        return legacyHash(LibraryState.PASSWORD);
+    }
+
+    @Benchmark
+    public String[] legacyDecodeAuthHeader() {
+        String base64Credentials = authHeader.split(" ")[1];
+        String credentials = new String(Base64.getDecoder().decode(base64Credentials), StandardCharsets.UTF_8);
+        String[] values = credentials.split(":");
+        return new String[] { values[0], legacyHash(values[1]) };
+    }
+
+    private static String legacyHash(String input) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(input.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hexString = new StringBuilder();
+            for (byte b : hash) {
+                String hex = Integer.toHexString(0xff & b);
+                if (hex.length() == 1) hexString.append('0');
+                hexString.append(hex);
+            }
+            return hexString.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
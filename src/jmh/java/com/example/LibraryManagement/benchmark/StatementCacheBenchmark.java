@@ -0,0 +1,62 @@
+package com.example.LibraryManagement.benchmark;
+
+import com.example.LibraryManagement.models.Book;
+import com.example.LibraryManagement.models.Rental;
+import com.example.LibraryManagement.models.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the per-call cost of the fixed repository queries with and without the statement caches of the connections.
+ * With statementCacheSize=0 every call prepares its statement again, so the difference between both settings
+ * is the time SQLite spends parsing and planning the query on every call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatementCacheBenchmark {
+
+    /**
+     * A seeded library whose connections keep statementCacheSize prepared statements open.
+     */
+    public static class CacheState extends LibraryState {
+        /**
+         * The maximum number of prepared statements kept open per connection, 0 to disable the statement caches.
+         */
+        @Param({"0", "64"})
+        public int statementCacheSize;
+
+        @Override
+        protected String[] properties() {
+            return new String[] { "db.pool.statement-cache-size=" + statementCacheSize };
+        }
+    }
+
+    @Benchmark
+    public ArrayList<Book> findBooksByTitle(CacheState state) {
+        return state.bookRepository.findBooksByTitle(state.randomTitle());
+    }
+
+    @Benchmark
+    public Optional<User> findUserById(CacheState state) {
+        return state.userRepository.findUserById(state.randomUserId());
+    }
+
+    @Benchmark
+    public boolean existsRental(CacheState state) {
+        return state.rentalRepository.existsRental(new Rental(state.randomBookId(), state.randomUserId()));
+    }
+
+    @Benchmark
+    public boolean rentAndReturnBook(CacheState state) {
+        // The books that are not multiples of 10 are never rented by the seed, so the write always goes through
+        int bookId = state.randomBookId() / 10 * 10 + 1;
+        Rental rental = new Rental(Math.min(bookId, state.catalogSize - 1), state.randomUserId());
+        return state.rentalRepository.rentBook(rental) & state.rentalRepository.returnBook(rental);
+    }
+}
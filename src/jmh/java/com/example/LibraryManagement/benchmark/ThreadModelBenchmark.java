@@ -0,0 +1,94 @@
+package com.example.LibraryManagement.benchmark;
+
+import com.example.LibraryManagement.models.Rental;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the repository throughput under a mixed read/write load, served by platform or virtual threads.
+ * Each invocation submits a burst of REQUESTS blocking calls, one write for every nine reads,
+ * the way Tomcat hands requests to its worker threads, and waits for all of them to complete.
+ * The "platform" executor is a fixed pool of 200 threads, the default maximum of Tomcat's worker pool,
+ * while the "virtual" executor starts one virtual thread per call, as with spring.threads.virtual.enabled=true.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ThreadModelBenchmark {
+    /**
+     * The number of calls submitted by each invocation.
+     */
+    static final int REQUESTS = 1000;
+    /**
+     * The number of worker threads of the platform executor.
+     */
+    static final int PLATFORM_THREADS = 200;
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        executor = threads.equals("virtual")
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(PLATFORM_THREADS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(REQUESTS)
+    public int mixedReadWrite(LibraryState state) throws Exception {
+        ArrayList<Future<Integer>> calls = new ArrayList<>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            calls.add(executor.submit(i % 10 == 0 ? () -> write(state) : () -> read(state)));
+        }
+
+        int rows = 0;
+        for (Future<Integer> call : calls) {
+            rows += call.get();
+        }
+        return rows;
+    }
+
+    /**
+     * A write request, renting a book that is not rented by the seed and returning it.
+     *
+     * @return the number of rows changed
+     */
+    private static int write(LibraryState state) {
+        int bookId;
+        do {
+            bookId = state.randomBookId();
+        } while (bookId % 10 == 0);
+
+        Rental rental = new Rental(bookId, state.randomUserId());
+        return state.rentalRepository.rentBook(rental) && state.rentalRepository.returnBook(rental) ? 2 : 0;
+    }
+
+    /**
+     * A read request, either a page of books or a lookup by author.
+     *
+     * @return the number of rows read
+     */
+    private static int read(LibraryState state) {
+        if (ThreadLocalRandom.current().nextBoolean()) {
+            return state.bookRepository.getBooksPage(state.randomBookId(), 100).getItems().size();
+        }
+        return state.bookRepository.findBooksByAuthor(state.randomAuthor()).size();
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.LibraryManagement.benchmark;
+
+import com.example.LibraryManagement.models.Page;
+import com.example.LibraryManagement.models.User;
+import com.example.LibraryManagement.security.Utils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the UserRepository lookups against a seeded set of users.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserRepositoryBenchmark {
+
+    private static final String PASSWORD_HASH = Utils.hashString(LibraryState.PASSWORD);
+
+    @Benchmark
+    public Optional<User> authenticateUser(LibraryState state) {
+        return state.userRepository.authenticateUser(LibraryState.username(state.randomUserId()), PASSWORD_HASH);
+    }
+
+    @Benchmark
+    public Optional<User> findUserById(LibraryState state) {
+        return state.userRepository.findUserById(state.randomUserId());
+    }
+
+    @Benchmark
+    public Page<User> getUsersPage(LibraryState state) {
+        return state.userRepository.getUsersPage(state.randomUserId(), 100);
+    }
+}
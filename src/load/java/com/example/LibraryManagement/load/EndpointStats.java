@@ -0,0 +1,124 @@
+package com.example.LibraryManagement.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The EndpointStats class records the latencies and the outcomes of the requests sent to one endpoint.
+ * Latencies are recorded in microseconds in an HdrHistogram, from the time the request was scheduled to be sent,
+ * so a server that falls behind the target rate is not hidden by the requests it delayed (coordinated omission).
+ */
+public class EndpointStats {
+    /**
+     * The highest latency the histograms can record, longer latencies are recorded as this value.
+     */
+    private static final long HIGHEST_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    /**
+     * The latencies of the requests in microseconds.
+     */
+    private final Histogram latencies = new ConcurrentHistogram(HIGHEST_LATENCY_MICROS, 3);
+    /**
+     * The number of responses per HTTP status code, and of failed requests per exception.
+     */
+    private final ConcurrentHashMap<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+    /**
+     * The number of responses with a 5xx status code and of requests that got no response.
+     */
+    private final LongAdder errors = new LongAdder();
+
+    /**
+     * Records a response.
+     *
+     * @param latencyNanos the time from the scheduled send time of the request to its response
+     * @param status the HTTP status code of the response
+     */
+    public void recordResponse(long latencyNanos, int status) {
+        record(latencyNanos);
+        outcomes.computeIfAbsent(String.valueOf(status), key -> new LongAdder()).increment();
+        if (status >= 500) {
+            errors.increment();
+        }
+    }
+
+    /**
+     * Records a request that got no response, such as a timeout or a refused connection.
+     *
+     * @param latencyNanos the time from the scheduled send time of the request to its failure
+     * @param failure the exception the request failed with
+     */
+    public void recordFailure(long latencyNanos, Throwable failure) {
+        record(latencyNanos);
+        outcomes.computeIfAbsent(failure.getClass().getSimpleName(), key -> new LongAdder()).increment();
+        errors.increment();
+    }
+
+    /**
+     * Returns the number of recorded requests.
+     *
+     * @return the number of requests
+     */
+    public long count() {
+        return latencies.getTotalCount();
+    }
+
+    /**
+     * Returns the number of responses with a 5xx status code and of requests that got no response.
+     *
+     * @return the number of errors
+     */
+    public long errors() {
+        return errors.sum();
+    }
+
+    /**
+     * Returns the number of requests per outcome, sorted by outcome.
+     *
+     * @return the HTTP status codes and the exception names, with their number of requests
+     */
+    public Map<String, Long> outcomes() {
+        Map<String, Long> sorted = new TreeMap<>();
+        outcomes.forEach((outcome, count) -> sorted.put(outcome, count.sum()));
+        return sorted;
+    }
+
+    /**
+     * Returns the latency at a percentile.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the latency in milliseconds
+     */
+    public double latencyMillis(double percentile) {
+        return latencies.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    /**
+     * Returns the highest recorded latency.
+     *
+     * @return the latency in milliseconds
+     */
+    public double maxLatencyMillis() {
+        return latencies.getMaxValue() / 1000.0;
+    }
+
+    /**
+     * Writes the full percentile distribution of the latencies in the HdrHistogram .hgrm format, in milliseconds.
+     * The files can be plotted with the HdrHistogram plotter.
+     *
+     * @param out the stream to write to
+     */
+    public void writePercentileDistribution(PrintStream out) {
+        latencies.outputPercentileDistribution(out, 1000.0);
+    }
+
+    private void record(long latencyNanos) {
+        latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_LATENCY_MICROS));
+    }
+}
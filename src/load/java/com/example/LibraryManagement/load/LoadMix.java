@@ -0,0 +1,131 @@
+package com.example.LibraryManagement.load;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The LoadMix class picks the endpoint of every request sent by the load test, according to configured weights.
+ * A mix is written as comma-separated endpoint:weight pairs, e.g. "books:70,rent:15,return:10,register:5".
+ */
+public class LoadMix {
+    /**
+     * The endpoints driven by the load test.
+     */
+    public enum Endpoint {
+        /** GET /api/books, one page of the catalog starting at a random cursor. */
+        BOOKS("books", "GET /api/books"),
+        /** POST /api/rentals/rent/{id}, a random user renting a random book. */
+        RENT("rent", "POST /api/rentals/rent/{id}"),
+        /** POST /api/rentals/return/{id}, a user returning a book rented earlier in the run. */
+        RETURN("return", "POST /api/rentals/return/{id}"),
+        /** POST /api/users/register, a new user registering. */
+        REGISTER("register", "POST /api/users/register");
+
+        /**
+         * The name of the endpoint in a mix.
+         */
+        final String key;
+        /**
+         * The name of the endpoint in the report.
+         */
+        final String label;
+
+        Endpoint(String key, String label) {
+            this.key = key;
+            this.label = label;
+        }
+    }
+
+    /**
+     * The endpoints with a positive weight.
+     */
+    private final List<Endpoint> endpoints = new ArrayList<>();
+    /**
+     * The cumulative weights of the endpoints, in the same order.
+     */
+    private final List<Integer> cumulativeWeights = new ArrayList<>();
+    /**
+     * The weights of the endpoints, as configured.
+     */
+    private final Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+
+    /**
+     * Parses a mix.
+     *
+     * @param mix the comma-separated endpoint:weight pairs
+     * @throws IllegalArgumentException if an endpoint is unknown, a weight is negative or all weights are 0
+     */
+    public LoadMix(String mix) {
+        int total = 0;
+        for (String pair : mix.split(",")) {
+            String[] parts = pair.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected endpoint:weight in the mix, got '" + pair + "'");
+            }
+            Endpoint endpoint = endpoint(parts[0].trim());
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight for " + endpoint.key);
+            }
+            weights.merge(endpoint, weight, Integer::sum);
+        }
+        for (Map.Entry<Endpoint, Integer> entry : weights.entrySet()) {
+            if (entry.getValue() > 0) {
+                total += entry.getValue();
+                endpoints.add(entry.getKey());
+                cumulativeWeights.add(total);
+            }
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("The mix has no endpoint with a positive weight");
+        }
+    }
+
+    /**
+     * Picks the endpoint of the next request at random, following the weights of the mix.
+     *
+     * @return the endpoint of the next request
+     */
+    public Endpoint next() {
+        int pick = ThreadLocalRandom.current().nextInt(cumulativeWeights.get(cumulativeWeights.size() - 1));
+        for (int i = 0; i < endpoints.size(); i++) {
+            if (pick < cumulativeWeights.get(i)) {
+                return endpoints.get(i);
+            }
+        }
+        throw new IllegalStateException("Unreachable");
+    }
+
+    /**
+     * Returns the endpoints with a positive weight.
+     *
+     * @return the endpoints of the mix
+     */
+    public List<Endpoint> endpoints() {
+        return endpoints;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Endpoint endpoint : endpoints) {
+            if (!builder.isEmpty()) {
+                builder.append(',');
+            }
+            builder.append(endpoint.key).append(':').append(weights.get(endpoint));
+        }
+        return builder.toString();
+    }
+
+    private static Endpoint endpoint(String key) {
+        for (Endpoint endpoint : Endpoint.values()) {
+            if (endpoint.key.equalsIgnoreCase(key)) {
+                return endpoint;
+            }
+        }
+        throw new IllegalArgumentException("Unknown endpoint '" + key + "' in the mix, expected one of books, rent, return, register");
+    }
+}
@@ -0,0 +1,341 @@
+package com.example.LibraryManagement.load;
+
+import com.example.LibraryManagement.LibraryManagementMain;
+import com.example.LibraryManagement.database.BookRepository;
+import com.example.LibraryManagement.database.UserRepository;
+import com.example.LibraryManagement.load.LoadMix.Endpoint;
+import com.example.LibraryManagement.models.AuthToken;
+import com.example.LibraryManagement.models.Book;
+import com.example.LibraryManagement.models.User;
+import com.example.LibraryManagement.security.Utils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+
+/**
+ * The LoadTest class reproduces a rental storm against a local instance of the application.
+ * It starts the application on a random port and a temporary SQLite file, seeds it with books and users,
+ * logs every user in, and then sends requests at a fixed target rate, picking the endpoint of every request from a weighted mix.
+ * Requests are sent on schedule whether or not the previous ones were answered (an open workload),
+ * and the latencies and outcomes of every endpoint are reported as HdrHistogram percentiles.
+ * <p>
+ * Options are passed as key=value arguments:
+ * <ul>
+ *     <li>rate: the target number of requests per second (default 200)</li>
+ *     <li>duration: the length of the measured run in seconds (default 60)</li>
+ *     <li>warmup: the length of the unmeasured run before it in seconds (default 10)</li>
+ *     <li>mix: the weights of the endpoints (default books:70,rent:15,return:10,register:5)</li>
+ *     <li>books: the number of seeded books (default 10000)</li>
+ *     <li>users: the number of seeded users (default 1000)</li>
+ *     <li>timeout: the time in seconds after which a request counts as failed (default 30)</li>
+ *     <li>out: the directory the .hgrm percentile distributions are written to (default target/load-test)</li>
+ *     <li>app.*: any application property, e.g. app.spring.threads.virtual.enabled=true</li>
+ * </ul>
+ */
+public class LoadTest {
+    /**
+     * The password of every seeded user.
+     */
+    private static final String PASSWORD = "password";
+    /**
+     * The number of books per page of the catalog requests.
+     */
+    private static final int PAGE_SIZE = 50;
+    /**
+     * The percentiles printed in the report.
+     */
+    private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+
+    private final Map<String, String> options;
+    private final LoadMix mix;
+    private final int rate;
+    private final int bookCount;
+    private final int userCount;
+    private final Duration timeout;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * The session tokens of the seeded users, indexed by user id - 1.
+     */
+    private final List<String> tokens = new ArrayList<>();
+    /**
+     * The books rented during the run and not returned yet, as (user index, book id) pairs.
+     */
+    private final ConcurrentLinkedQueue<int[]> rentedBooks = new ConcurrentLinkedQueue<>();
+    /**
+     * The number of users registered during the run, used to make their usernames unique.
+     */
+    private final AtomicInteger registeredUsers = new AtomicInteger();
+    /**
+     * The number of requests sent and not answered yet.
+     */
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private String baseUrl;
+
+    public static void main(String[] args) throws Exception {
+        new LoadTest(parseOptions(args)).run();
+    }
+
+    private LoadTest(Map<String, String> options) {
+        this.options = options;
+        this.mix = new LoadMix(option("mix", "books:70,rent:15,return:10,register:5"));
+        this.rate = Integer.parseInt(option("rate", "200"));
+        this.bookCount = Integer.parseInt(option("books", "10000"));
+        this.userCount = Integer.parseInt(option("users", "1000"));
+        this.timeout = Duration.ofSeconds(Long.parseLong(option("timeout", "30")));
+        if (rate <= 0 || bookCount <= 0 || userCount <= 0) {
+            throw new IllegalArgumentException("rate, books and users must be positive");
+        }
+    }
+
+    private void run() throws Exception {
+        Path databaseFile = Files.createTempFile("library-load-test", ".sqlite");
+        ConfigurableApplicationContext context = startApplication(databaseFile);
+        try {
+            baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            seed();
+            logIn();
+
+            long warmupSeconds = Long.parseLong(option("warmup", "10"));
+            if (warmupSeconds > 0) {
+                System.out.printf("Warming up for %d s at %d requests/s%n", warmupSeconds, rate);
+                drive(warmupSeconds, newStats());
+            }
+
+            long durationSeconds = Long.parseLong(option("duration", "60"));
+            System.out.printf("Running for %d s at %d requests/s with the mix %s%n", durationSeconds, rate, mix);
+            Map<Endpoint, EndpointStats> stats = newStats();
+            long elapsedNanos = drive(durationSeconds, stats);
+
+            report(stats, elapsedNanos);
+            writePercentileDistributions(stats, Path.of(option("out", "target/load-test")));
+        } finally {
+            context.close();
+            for (String suffix : new String[] { "", "-wal", "-shm" }) {
+                Files.deleteIfExists(Path.of(databaseFile + suffix));
+            }
+        }
+    }
+
+    /**
+     * Starts the application on a random port, with the application properties passed as app.* options.
+     */
+    private ConfigurableApplicationContext startApplication(Path databaseFile) {
+        // Passing the settings as command line arguments, which take precedence over application.properties
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--db.url=jdbc:sqlite:" + databaseFile,
+                "--logging.level.root=WARN"));
+        options.forEach((key, value) -> {
+            if (key.startsWith("app.")) {
+                args.add("--" + key.substring("app.".length()) + "=" + value);
+            }
+        });
+
+        System.out.println("Starting the application on " + databaseFile);
+        return new SpringApplicationBuilder(LibraryManagementMain.class).run(args.toArray(new String[0]));
+    }
+
+    private void seed() {
+        System.out.printf("Seeding %d books and %d users%n", bookCount, userCount);
+        BookRepository.getInstance().addBooks(IntStream.rangeClosed(1, bookCount)
+                .mapToObj(i -> new Book("Load Title " + i, "Load Author " + i % 1000))
+                .iterator());
+
+        String passwordHash = Utils.hashString(PASSWORD);
+        for (int i = 1; i <= userCount; i++) {
+            UserRepository.getInstance().registerUser(new User(username(i), passwordHash, false));
+        }
+    }
+
+    /**
+     * Logs every seeded user in, so the rentals are authenticated with session tokens like real clients do.
+     */
+    private void logIn() throws IOException, InterruptedException {
+        for (int i = 1; i <= userCount; i++) {
+            String credentials = Base64.getEncoder().encodeToString((username(i) + ":" + PASSWORD).getBytes());
+            HttpResponse<String> response = client.send(
+                    request("/api/users/login").header("Authorization", "Basic " + credentials)
+                            .POST(HttpRequest.BodyPublishers.noBody()).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Login of " + username(i) + " failed with status " + response.statusCode());
+            }
+            tokens.add(objectMapper.readValue(response.body(), AuthToken.class).getToken());
+        }
+    }
+
+    /**
+     * Sends requests at the target rate for the given time, then waits for the requests still in flight.
+     *
+     * @return the time in nanoseconds from the first request to the last response
+     */
+    private long drive(long seconds, Map<Endpoint, EndpointStats> stats) {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long requests = seconds * rate;
+        long start = System.nanoTime();
+
+        for (long i = 0; i < requests; i++) {
+            // The latency of a request is measured from when it should have been sent, not from when it was sent
+            long scheduled = start + i * intervalNanos;
+            long wait;
+            while ((wait = scheduled - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            send(mix.next(), scheduled, stats);
+        }
+
+        long deadline = System.nanoTime() + timeout.toNanos() + TimeUnit.SECONDS.toNanos(5);
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        return System.nanoTime() - start;
+    }
+
+    private void send(Endpoint endpoint, long scheduled, Map<Endpoint, EndpointStats> stats) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int userIndex = random.nextInt(userCount);
+        int bookId = 1 + random.nextInt(bookCount);
+
+        if (endpoint == Endpoint.RETURN) {
+            int[] rental = rentedBooks.poll();
+            if (rental == null) {
+                // Nothing to return yet, so the storm rents instead
+                endpoint = Endpoint.RENT;
+            } else {
+                userIndex = rental[0];
+                bookId = rental[1];
+            }
+        }
+
+        HttpRequest request = switch (endpoint) {
+            case BOOKS -> request("/api/books?limit=" + PAGE_SIZE + "&cursor=" + random.nextInt(bookCount)).GET().build();
+            case RENT -> authorized(request("/api/rentals/rent/" + bookId), userIndex).POST(HttpRequest.BodyPublishers.noBody()).build();
+            case RETURN -> authorized(request("/api/rentals/return/" + bookId), userIndex).POST(HttpRequest.BodyPublishers.noBody()).build();
+            case REGISTER -> request("/api/users/register")
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"registered" + registeredUsers.incrementAndGet()
+                            + "\",\"password\":\"" + PASSWORD + "\",\"admin\":0}"))
+                    .build();
+        };
+
+        Endpoint sent = endpoint;
+        int[] rental = { userIndex, bookId };
+        EndpointStats endpointStats = stats.get(sent);
+        inFlight.incrementAndGet();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+            long latency = System.nanoTime() - scheduled;
+            if (failure != null) {
+                endpointStats.recordFailure(latency, failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure);
+            } else {
+                endpointStats.recordResponse(latency, response.statusCode());
+                if (sent == Endpoint.RENT && response.statusCode() == 201) {
+                    rentedBooks.add(rental);
+                }
+            }
+            inFlight.decrementAndGet();
+        });
+    }
+
+    private void report(Map<Endpoint, EndpointStats> stats, long elapsedNanos) {
+        long total = 0;
+        System.out.println();
+        System.out.printf("%-32s %8s %7s %9s %9s %9s %9s %9s  %s%n",
+                "Endpoint", "Requests", "Errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "Outcomes");
+        for (Map.Entry<Endpoint, EndpointStats> entry : stats.entrySet()) {
+            EndpointStats endpointStats = entry.getValue();
+            if (endpointStats.count() == 0) {
+                continue;
+            }
+            total += endpointStats.count();
+
+            StringBuilder line = new StringBuilder(String.format("%-32s %8d %7d", entry.getKey().label, endpointStats.count(), endpointStats.errors()));
+            for (double percentile : PERCENTILES) {
+                line.append(String.format(" %9.2f", endpointStats.latencyMillis(percentile)));
+            }
+            line.append(String.format(" %9.2f  %s", endpointStats.maxLatencyMillis(), endpointStats.outcomes()));
+            System.out.println(line);
+        }
+        System.out.printf("%nAchieved %.1f requests/s (target %d)%n", total / (elapsedNanos / 1e9), rate);
+    }
+
+    private void writePercentileDistributions(Map<Endpoint, EndpointStats> stats, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (Map.Entry<Endpoint, EndpointStats> entry : stats.entrySet()) {
+            if (entry.getValue().count() == 0) {
+                continue;
+            }
+            Path file = directory.resolve(entry.getKey().key + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+                entry.getValue().writePercentileDistribution(out);
+            }
+        }
+        System.out.println("Percentile distributions written to " + directory.toAbsolutePath());
+    }
+
+    private Map<Endpoint, EndpointStats> newStats() {
+        Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new EndpointStats());
+        }
+        return stats;
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(timeout);
+    }
+
+    private HttpRequest.Builder authorized(HttpRequest.Builder builder, int userIndex) {
+        return builder.header("Authorization", "Bearer " + tokens.get(userIndex));
+    }
+
+    private String option(String key, String defaultValue) {
+        return options.getOrDefault(key, defaultValue);
+    }
+
+    private static String username(int i) {
+        return "load" + i;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            String option = arg.startsWith("--") ? arg.substring(2) : arg;
+            int separator = option.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got '" + arg + "'");
+            }
+            options.put(option.substring(0, separator), option.substring(separator + 1));
+        }
+        return options;
+    }
+}
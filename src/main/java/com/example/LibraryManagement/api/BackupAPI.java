@@ -0,0 +1,77 @@
+package com.example.LibraryManagement.api;
+
+import com.example.LibraryManagement.database.DatabaseBackup;
+import com.example.LibraryManagement.models.BackupStatus;
+import com.example.LibraryManagement.models.User;
+import com.example.LibraryManagement.security.AuthenticationFilter;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * The BackupAPI class handles backup-related API endpoints.
+ * It provides methods for starting a backup of the database and following its progress, for admins only.
+ */
+@RestController
+@RequestMapping("/api/backup")
+public class BackupAPI {
+    /**
+     * The DatabaseBackup instance used to back up the database.
+     */
+    private final DatabaseBackup databaseBackup;
+
+    /**
+     * Constructor for the BackupAPI class.
+     * Initializes the DatabaseBackup instance.
+     */
+    public BackupAPI() {
+        this.databaseBackup = DatabaseBackup.getInstance();
+    }
+
+    /**
+     * API endpoint to start a backup of the database in the background.
+     * Requires Basic HTTP Authentication or a session token, and admin privileges.
+     *
+     * @param user the user authenticated by the AuthenticationFilter, or null if the credentials are missing or wrong
+     * @return a ResponseEntity with an appropriate status code and message
+     */
+    @PostMapping("/start")
+    public ResponseEntity<String> startBackup(@RequestAttribute(name = AuthenticationFilter.USER_ATTRIBUTE, required = false) User user) {
+        // Checking that the AuthenticationFilter authenticated the user with a session token or Basic credentials
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Wrong user credentials");
+        }
+        // Checking if the user is an admin
+        else if(!user.getAdmin()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("User is not an admin");
+        }
+        else if(databaseBackup.startBackup()) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body("Backup started");
+        }
+        else {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("A backup is already running");
+        }
+    }
+
+    /**
+     * API endpoint to retrieve the progress of the running or last backup and the outcome of the last finished one.
+     * Requires Basic HTTP Authentication or a session token, and admin privileges.
+     *
+     * @param user the user authenticated by the AuthenticationFilter, or null if the credentials are missing or wrong
+     * @return the current status of the backups
+     * @throws ResponseStatusException if the credentials are wrong or the user is not an admin
+     */
+    @GetMapping("/status")
+    public BackupStatus getBackupStatus(@RequestAttribute(name = AuthenticationFilter.USER_ATTRIBUTE, required = false) User user) {
+        // Checking that the AuthenticationFilter authenticated the user with a session token or Basic credentials
+        if (user == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Wrong user credentials");
+        }
+        // Checking if the user is an admin
+        else if(!user.getAdmin()) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "User is not an admin");
+        }
+        return databaseBackup.getStatus();
+    }
+}
@@ -1,17 +1,32 @@
 package com.example.LibraryManagement.api;
 
+import com.example.LibraryManagement.database.CatalogVersion;
 import com.example.LibraryManagement.database.BookRepository;
-import com.example.LibraryManagement.database.UserRepository;
 import com.example.LibraryManagement.models.Book;
+import com.example.LibraryManagement.models.BulkAddResult;
+import com.example.LibraryManagement.models.Page;
 import com.example.LibraryManagement.models.User;
-import com.example.LibraryManagement.security.Utils;
+import com.example.LibraryManagement.security.AuthenticationFilter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * The BookAPI class handles book-related API endpoints.
@@ -20,32 +35,104 @@ import java.util.ArrayList;
 @RestController
 @RequestMapping("/api/books")
 public class BookAPI {
+    /**
+     * The maximum number of books in an availability check.
+     */
+    private static final int MAX_AVAILABILITY_IDS = 1000;
+
+    /**
+     * The ObjectReader used to read the books of a bulk import one by one.
+     */
+    private static final ObjectReader bookReader = new ObjectMapper()
+            .readerFor(Book.class)
+            .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
     /**
      * The BookRepository instance used to interact with the database.
      */
     private final BookRepository bookRepository;
     /**
-     * The UserRepository instance used to interact with the database.
+     * The Pagination instance used to resolve the page sizes.
      */
-    private final UserRepository userRepository;
+    private final Pagination pagination;
+    /**
+     * The QueryExecutor instance used to run the queries of the async endpoints.
+     */
+    private final QueryExecutor queryExecutor;
 
     /**
      * Constructor for the BookAPI class.
-     * Initializes the BookRepository and UserRepository instances.
+     * Initializes the BookRepository, Pagination and QueryExecutor instances.
      */
     public BookAPI() {
         this.bookRepository = BookRepository.getInstance();
-        this.userRepository = UserRepository.getInstance();
+        this.pagination = Pagination.getInstance();
+        this.queryExecutor = QueryExecutor.getInstance();
     }
 
     /**
-     * API endpoint to retrieve a list of all books from the database.
+     * API endpoint to retrieve one page of books from the database, ordered by id.
+     * Pages are requested with the cursor returned by the previous page.
+     * The response carries the ETag of the catalog version, and a request with a matching If-None-Match header
+     * gets a 304 Not Modified without querying the database.
      *
-     * @return an ArrayList of Book objects representing all books in the database
+     * @param cursor the nextCursor returned by the previous page, or 0 for the first page
+     * @param limit the maximum number of books in the page, capped to the configured maximum page size
+     * @param webRequest the HTTP request, used to check the If-None-Match header
+     * @return a Page of Book objects and the cursor of the next page, or null if the catalog has not changed
      */
     @GetMapping("")
-    public ArrayList<Book> getAllBooks() {
-        return bookRepository.getAllBooks();
+    public Page<Book> getAllBooks(@RequestParam(defaultValue = "0") int cursor, @RequestParam(required = false) Integer limit, WebRequest webRequest) {
+        if (webRequest.checkNotModified(CatalogVersion.etag())) {
+            return null;
+        }
+        return bookRepository.getBooksPage(cursor, pagination.pageSize(limit));
+    }
+
+    /**
+     * API endpoint to export all books from the database as newline-delimited JSON.
+     * Rows are streamed to the client while they are read from the database, one JSON object per line.
+     *
+     * @return a ResponseEntity streaming every book as one line of JSON
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportBooks() {
+        return NdjsonExport.<Book>stream(bookRepository::forEachBook);
+    }
+
+    /**
+     * API endpoint to search the books by title and author, best matches first.
+     * Every word of the search text must match a word of the title or author, or the start of one.
+     * Pages are requested with the cursor returned by the previous page.
+     * Like the listing, the response carries the ETag of the catalog version.
+     *
+     * @param q the search text
+     * @param cursor the nextCursor returned by the previous page, or 0 for the first page
+     * @param limit the maximum number of books in the page, capped to the configured maximum page size
+     * @param webRequest the HTTP request, used to check the If-None-Match header
+     * @return a Page of the matching Book objects and the cursor of the next page, or null if the catalog has not changed
+     */
+    @GetMapping("/search")
+    public Page<Book> searchBooks(@RequestParam String q, @RequestParam(defaultValue = "0") int cursor, @RequestParam(required = false) Integer limit, WebRequest webRequest) {
+        if (webRequest.checkNotModified(CatalogVersion.etag())) {
+            return null;
+        }
+        return bookRepository.searchBooks(q, Math.max(cursor, 0), pagination.pageSize(limit));
+    }
+
+    /**
+     * API endpoint to check the availability of many books at once.
+     * The checks are answered from memory, without querying the database.
+     *
+     * @param ids the ids of the books to check, as a comma-separated list
+     * @return the availability of every book indexed by id, false for books that don't exist
+     */
+    @GetMapping("/availability")
+    public LinkedHashMap<Integer, Boolean> getAvailability(@RequestParam List<Integer> ids) {
+        if (ids.size() > MAX_AVAILABILITY_IDS || ids.contains(null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Expected at most " + MAX_AVAILABILITY_IDS + " book ids");
+        }
+        return bookRepository.getAvailability(ids);
     }
 
     /**
@@ -81,22 +168,87 @@ public class BookAPI {
         return bookRepository.findBookById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Book not found"));
     }
 
+    /**
+     * Async variant of the book listing, running the query on the QueryExecutor instead of the servlet thread.
+     * The ETag is checked on the servlet thread, so a 304 Not Modified never waits for a query thread.
+     *
+     * @param cursor the nextCursor returned by the previous page, or 0 for the first page
+     * @param limit the maximum number of books in the page, capped to the configured maximum page size
+     * @param webRequest the HTTP request, used to check the If-None-Match header
+     * @return a future of a Page of Book objects and the cursor of the next page, or null if the catalog has not changed
+     */
+    @GetMapping("/async")
+    public CompletableFuture<Page<Book>> getAllBooksAsync(@RequestParam(defaultValue = "0") int cursor, @RequestParam(required = false) Integer limit, WebRequest webRequest) {
+        if (webRequest.checkNotModified(CatalogVersion.etag())) {
+            return null;
+        }
+        int pageSize = pagination.pageSize(limit);
+        return queryExecutor.supply(() -> bookRepository.getBooksPage(cursor, pageSize));
+    }
+
+    /**
+     * Async variant of the book search, running the query on the QueryExecutor instead of the servlet thread.
+     *
+     * @param q the search text
+     * @param cursor the nextCursor returned by the previous page, or 0 for the first page
+     * @param limit the maximum number of books in the page, capped to the configured maximum page size
+     * @param webRequest the HTTP request, used to check the If-None-Match header
+     * @return a future of a Page of the matching Book objects and the cursor of the next page, or null if the catalog has not changed
+     */
+    @GetMapping("/async/search")
+    public CompletableFuture<Page<Book>> searchBooksAsync(@RequestParam String q, @RequestParam(defaultValue = "0") int cursor, @RequestParam(required = false) Integer limit, WebRequest webRequest) {
+        if (webRequest.checkNotModified(CatalogVersion.etag())) {
+            return null;
+        }
+        int pageSize = pagination.pageSize(limit);
+        return queryExecutor.supply(() -> bookRepository.searchBooks(q, Math.max(cursor, 0), pageSize));
+    }
+
+    /**
+     * Async variant of the lookup by title, running the query on the QueryExecutor instead of the servlet thread.
+     *
+     * @param title the title of the books to search for
+     * @return a future of an ArrayList of Book objects that have the specified title
+     */
+    @GetMapping("/async/title/{title}")
+    public CompletableFuture<ArrayList<Book>> getBooksByTitleAsync(@PathVariable String title) {
+        return queryExecutor.supply(() -> bookRepository.findBooksByTitle(title));
+    }
+
+    /**
+     * Async variant of the lookup by author, running the query on the QueryExecutor instead of the servlet thread.
+     *
+     * @param author the author of the books to search for
+     * @return a future of an ArrayList of Book objects that have the specified author
+     */
+    @GetMapping("/async/author/{author}")
+    public CompletableFuture<ArrayList<Book>> getBooksByAuthorAsync(@PathVariable String author) {
+        return queryExecutor.supply(() -> bookRepository.findBooksByAuthor(author));
+    }
+
+    /**
+     * Async variant of the lookup by id, running the query on the QueryExecutor instead of the servlet thread.
+     *
+     * @param id the id of the book to retrieve
+     * @return a future of the Book object with the specified id, failing with 404 Not Found if there is none
+     */
+    @GetMapping("/async/id/{id}")
+    public CompletableFuture<Book> getBookByIdAsync(@PathVariable int id) {
+        return queryExecutor.supply(() -> bookRepository.findBookById(id))
+                .thenApply(book -> book.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Book not found")));
+    }
+
     /**
      * API endpoint to add a new book to the database.
-     * Requires Basic HTTP Authentication.
+     * Requires Basic HTTP Authentication or a session token.
      *
      * @param book the Book object to be added
+     * @param user the user authenticated by the AuthenticationFilter, or null if the credentials are missing or wrong
      * @return a ResponseEntity with an appropriate status code and message
      */
     @PostMapping("/add")
-    public ResponseEntity<String> addBook(@RequestBody Book book, HttpServletRequest request) {
-        // Decoding the username and password
-        String[] decodedCredentials = Utils.decodeAuthHeader(request.getHeader("Authorization"));
-        String username = decodedCredentials[0];
-        String hashPassword = decodedCredentials[1];
-
-        // Authenticating the user
-        User user = userRepository.authenticateUser(username, hashPassword).orElse(null);
+    public ResponseEntity<String> addBook(@RequestBody Book book, @RequestAttribute(name = AuthenticationFilter.USER_ATTRIBUTE, required = false) User user) {
+        // Checking that the AuthenticationFilter authenticated the user with a session token or Basic credentials
         if (user == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Wrong user credentials");
         }
@@ -104,6 +256,10 @@ public class BookAPI {
         else if(!user.getAdmin()) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("User is not an admin");
         }
+        // Checking the number of copies
+        else if(book.getCopies() < 0) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("The number of copies cannot be negative");
+        }
         else {
             if(bookRepository.addBook(book)) {
                 return ResponseEntity.status(HttpStatus.CREATED).body("Book added successfully");
@@ -114,22 +270,51 @@ public class BookAPI {
 
     }
 
+    /**
+     * API endpoint to add many books to the database in one request.
+     * Requires Basic HTTP Authentication or a session token.
+     * The body is either a JSON array of books or newline-delimited JSON with one book per line.
+     * It is read while the books are inserted, so large imports are never held in memory at once.
+     * If the body is malformed, the books committed before the error are kept.
+     *
+     * @param request the HTTP request containing the books to be added
+     * @param user the user authenticated by the AuthenticationFilter, or null if the credentials are missing or wrong
+     * @return a ResponseEntity with the outcome of every row, or an appropriate status code and message
+     */
+    @PostMapping(value = "/bulk", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+    public ResponseEntity<BulkAddResult> addBooks(HttpServletRequest request, @RequestAttribute(name = AuthenticationFilter.USER_ATTRIBUTE, required = false) User user) throws IOException {
+        // Checking that the AuthenticationFilter authenticated the user with a session token or Basic credentials
+        if (user == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Wrong user credentials");
+        }
+        // Checking if the user is an admin
+        else if(!user.getAdmin()) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "User is not an admin");
+        }
+
+        try (MappingIterator<Book> books = bookReader.readValues(request.getInputStream())) {
+            return ResponseEntity.status(HttpStatus.OK).body(bookRepository.addBooks(books));
+        } catch (RuntimeJsonMappingException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed book in request body", e);
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof JsonProcessingException) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed JSON in request body", e);
+            }
+            throw e;
+        }
+    }
+
     /**
      * API endpoint to delete a book from the database based on its id.
-     * Requires Basic HTTP Authentication.
+     * Requires Basic HTTP Authentication or a session token.
      *
      * @param id the id of the book to delete
+     * @param user the user authenticated by the AuthenticationFilter, or null if the credentials are missing or wrong
      * @return a ResponseEntity with an appropriate status code and message
      */
     @PostMapping("/delete/{id}")
-    public ResponseEntity<String> deleteBook(@PathVariable int id, HttpServletRequest request) {
-        // Decoding the username and password
-        String[] decodedCredentials = Utils.decodeAuthHeader(request.getHeader("Authorization"));
-        String username = decodedCredentials[0];
-        String hashPassword = decodedCredentials[1];
-
-        // Authenticating the user
-        User user = userRepository.authenticateUser(username, hashPassword).orElse(null);
+    public ResponseEntity<String> deleteBook(@PathVariable int id, @RequestAttribute(name = AuthenticationFilter.USER_ATTRIBUTE, required = false) User user) {
+        // Checking that the AuthenticationFilter authenticated the user with a session token or Basic credentials
         if (user == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Wrong user credentials");
         }
@@ -148,21 +333,16 @@ public class BookAPI {
 
     /**
      * API endpoint to update a book in the database based on its id.
-     * Requires Basic HTTP Authentication.
+     * Requires Basic HTTP Authentication or a session token.
      *
      * @param id the id of the book to update
      * @param newBook the new Book object with the desired values
+     * @param user the user authenticated by the AuthenticationFilter, or null if the credentials are missing or wrong
      * @return a ResponseEntity with an appropriate status code and message
      */
     @PostMapping("/update/{id}")
-    public ResponseEntity<String> updateBookById(@PathVariable int id, @RequestBody Book newBook, HttpServletRequest request) {
-        // Decoding the username and password
-        String[] decodedCredentials = Utils.decodeAuthHeader(request.getHeader("Authorization"));
-        String username = decodedCredentials[0];
-        String hashPassword = decodedCredentials[1];
-
-        // Authenticating the user
-        User user = userRepository.authenticateUser(username, hashPassword).orElse(null);
+    public ResponseEntity<String> updateBookById(@PathVariable int id, @RequestBody Book newBook, @RequestAttribute(name = AuthenticationFilter.USER_ATTRIBUTE, required = false) User user) {
+        // Checking that the AuthenticationFilter authenticated the user with a session token or Basic credentials
         if (user == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Wrong user credentials");
         }
@@ -183,4 +363,42 @@ public class BookAPI {
             }
         }
     }
+
+    /**
+     * API endpoint to change the number of copies of a book owned by the library.
+     * Requires Basic HTTP Authentication or a session token.
+     * The rented copies stay rented, so the number of copies cannot drop below the number of rented copies.
+     *
+     * @param id the id of the book to update
+     * @param copies the new number of copies of the book
+     * @param user the user authenticated by the AuthenticationFilter, or null if the credentials are missing or wrong
+     * @return a ResponseEntity with an appropriate status code and message
+     */
+    @PostMapping("/copies/{id}")
+    public ResponseEntity<String> updateBookCopies(@PathVariable int id, @RequestParam int copies, @RequestAttribute(name = AuthenticationFilter.USER_ATTRIBUTE, required = false) User user) {
+        // Checking that the AuthenticationFilter authenticated the user with a session token or Basic credentials
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Wrong user credentials");
+        }
+        // Checking if the user is an admin
+        else if(!user.getAdmin()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("User is not an admin");
+        }
+        // Checking the number of copies
+        else if(copies < 0) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("The number of copies cannot be negative");
+        }
+        else {
+            if(bookRepository.updateBookCopies(id, copies)) {
+                return ResponseEntity.status(HttpStatus.OK).body("Copies updated successfully");
+            }
+            // Checking if the book exists
+            else if(bookRepository.findBookById(id).isEmpty()) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Book not found");
+            }
+            else {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body("More copies are rented than the new number of copies");
+            }
+        }
+    }
 }
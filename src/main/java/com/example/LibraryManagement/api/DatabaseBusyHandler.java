@@ -0,0 +1,46 @@
+package com.example.LibraryManagement.api;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The DatabaseBusyHandler class turns the writes rejected by a full DatabaseWriter queue,
+ * and the async queries rejected by a full QueryExecutor queue or timed out, into 503 responses.
+ * Rejecting right away keeps the response times of the accepted requests predictable,
+ * and tells the clients to retry instead of failing them with a 500.
+ */
+@RestControllerAdvice
+public class DatabaseBusyHandler {
+
+    /**
+     * Handles a write rejected by the DatabaseWriter, or an async query rejected by the QueryExecutor, because its queue is full.
+     *
+     * @param e the rejection
+     * @return a ResponseEntity with the 503 status code, a Retry-After header and a message
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> handleRejectedWrite(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("The database is busy, please retry later");
+    }
+
+    /**
+     * Handles an async query that was not answered within the timeout of the QueryExecutor.
+     *
+     * @param e the timeout
+     * @return a ResponseEntity with the 503 status code, a Retry-After header and a message
+     */
+    @ExceptionHandler(TimeoutException.class)
+    public ResponseEntity<String> handleTimedOutQuery(TimeoutException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("The query timed out, please retry later");
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.LibraryManagement.api;
+
+import com.example.LibraryManagement.database.BookRepository;
+import com.example.LibraryManagement.database.ConnectionPool;
+import com.example.LibraryManagement.models.CacheMetrics;
+import com.example.LibraryManagement.models.PoolMetrics;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * The MetricsAPI class handles metrics-related API endpoints.
+ * It provides methods to retrieve runtime statistics of the application.
+ */
+@RestController
+@RequestMapping("/api/metrics")
+public class MetricsAPI {
+    /**
+     * The ConnectionPool instance used to interact with the database.
+     */
+    private final ConnectionPool connectionPool;
+    /**
+     * The BookRepository instance used to interact with the database.
+     */
+    private final BookRepository bookRepository;
+
+    /**
+     * Constructor for the MetricsAPI class.
+     * Initializes the ConnectionPool and BookRepository instances.
+     */
+    public MetricsAPI() {
+        this.connectionPool = ConnectionPool.getInstance();
+        this.bookRepository = BookRepository.getInstance();
+    }
+
+    /**
+     * API endpoint to retrieve the usage and wait-time metrics of the database connection pool.
+     *
+     * @return the current metrics of the connection pool
+     */
+    @GetMapping("/pool")
+    public PoolMetrics getPoolMetrics() {
+        return connectionPool.getMetrics();
+    }
+
+    /**
+     * API endpoint to retrieve the size and hit/miss counters of the book cache.
+     *
+     * @return the current metrics of the book cache
+     */
+    @GetMapping("/book-cache")
+    public CacheMetrics getBookCacheMetrics() {
+        return bookRepository.getBookCacheMetrics();
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.LibraryManagement.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * The NdjsonExport class writes rows to an HTTP response as newline-delimited JSON while they are read from the database.
+ * Rows are never collected into a list, so the memory used by an export does not depend on the size of the table.
+ */
+public class NdjsonExport {
+    /**
+     * The number of rows written between two flushes of the response.
+     */
+    private static final int FLUSH_EVERY_ROWS = 1000;
+    /**
+     * The ObjectMapper used to serialize the rows.
+     * It does not flush after every row, flushing is controlled by the export itself.
+     */
+    private static final ObjectMapper objectMapper = new ObjectMapper()
+            .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    /**
+     * Builds a streaming NDJSON response.
+     * The first row is flushed right away so the client starts receiving data immediately,
+     * after which the response is flushed every {@value #FLUSH_EVERY_ROWS} rows.
+     *
+     * @param source the repository method streaming the rows, e.g. bookRepository::forEachBook
+     * @param <T> the type of the rows
+     * @return a ResponseEntity whose body writes one JSON object per line
+     */
+    public static <T> ResponseEntity<StreamingResponseBody> stream(Consumer<Consumer<T>> source) {
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                // The response stream is closed by the servlet container, and rows are separated by new lines only
+                generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+                generator.setRootValueSeparator(null);
+
+                long[] rows = { 0 };
+                try {
+                    source.accept(row -> {
+                        try {
+                            objectMapper.writeValue(generator, row);
+                            generator.writeRaw('\n');
+
+                            if (rows[0]++ % FLUSH_EVERY_ROWS == 0) {
+                                generator.flush();
+                            }
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                } catch (UncheckedIOException e) {
+                    // The client went away or the response could not be written
+                    throw e.getCause();
+                }
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+}
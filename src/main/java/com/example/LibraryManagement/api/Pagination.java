@@ -0,0 +1,64 @@
+package com.example.LibraryManagement.api;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * The Pagination class holds the page size settings shared by the paginated listing endpoints.
+ */
+@Component
+public class Pagination {
+    /**
+     * The page size used when the client does not ask for one.
+     */
+    private static int DEFAULT_PAGE_SIZE;
+    /**
+     * The largest page size a client can ask for.
+     */
+    private static int MAX_PAGE_SIZE;
+    /**
+     * The singleton instance of Pagination.
+     */
+    private static Pagination pagination_instance = null;
+
+    /**
+     * Constructor for the Pagination class.
+     *
+     * @param defaultPageSize the page size used when the client does not ask for one. This value is obtained from the application.properties file.
+     * @param maxPageSize the largest page size a client can ask for. This value is obtained from the application.properties file.
+     */
+    public Pagination(@Value("${api.page.default-size}") int defaultPageSize,
+                      @Value("${api.page.max-size}") int maxPageSize) {
+        // Initializing the page sizes from application.properties
+        DEFAULT_PAGE_SIZE = defaultPageSize;
+        MAX_PAGE_SIZE = maxPageSize;
+    }
+
+    /**
+     * Returns the singleton instance of Pagination.
+     * Initializes the instance if it hasn't been created yet.
+     *
+     * @return the singleton instance of Pagination
+     */
+    public static Pagination getInstance()
+    {
+        if (pagination_instance == null)
+            pagination_instance = new Pagination(DEFAULT_PAGE_SIZE, MAX_PAGE_SIZE);
+
+        return pagination_instance;
+    }
+
+    /**
+     * Resolves the page size of a request.
+     * The default page size is used if none was requested, and requested sizes are capped to the maximum page size.
+     *
+     * @param requestedSize the page size requested by the client, may be null
+     * @return the page size to use
+     */
+    public int pageSize(Integer requestedSize) {
+        if (requestedSize == null || requestedSize <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(requestedSize, MAX_PAGE_SIZE);
+    }
+}
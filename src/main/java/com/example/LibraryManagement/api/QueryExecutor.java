@@ -0,0 +1,155 @@
+package com.example.LibraryManagement.api;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * The QueryExecutor class runs the repository calls of the async endpoints on a dedicated bounded pool of threads.
+ * The servlet thread of an async request is given back to the server as soon as the query is queued,
+ * so slow catalog scans don't hold the threads the other requests need.
+ * Queries waiting longer than the configured queue capacity are rejected right away,
+ * and queries not answered within the configured timeout fail with a TimeoutException.
+ */
+@Component
+public class QueryExecutor {
+    /**
+     * The number of threads running the queries.
+     */
+    private static int THREADS;
+    /**
+     * The maximum number of queries waiting for a free thread.
+     */
+    private static int QUEUE_CAPACITY;
+    /**
+     * The maximum time in milliseconds a query may take, waiting time included.
+     */
+    private static long TIMEOUT_MS;
+    /**
+     * The singleton instance of QueryExecutor.
+     */
+    private static QueryExecutor query_executor_instance = null;
+
+    /**
+     * The threads running the queries, and their queue of waiting queries.
+     * They are created on first use, once the configuration has been read from application.properties.
+     */
+    private volatile ThreadPoolExecutor executor;
+
+    /**
+     * Constructor for the QueryExecutor class.
+     *
+     * @param threads the number of threads running the queries. This value is obtained from the application.properties file.
+     * @param queueCapacity the maximum number of queries waiting for a free thread. This value is obtained from the application.properties file.
+     * @param timeoutMs the maximum time in milliseconds a query may take. This value is obtained from the application.properties file.
+     */
+    public QueryExecutor(@Value("${api.async.threads}") int threads,
+                         @Value("${api.async.queue-capacity}") int queueCapacity,
+                         @Value("${api.async.timeout-ms}") long timeoutMs) {
+        // Initializing the executor configuration from application.properties
+        THREADS = threads;
+        QUEUE_CAPACITY = queueCapacity;
+        TIMEOUT_MS = timeoutMs;
+    }
+
+    /**
+     * Returns the singleton instance of QueryExecutor.
+     * Initializes the instance if it hasn't been created yet.
+     *
+     * @return the singleton instance of QueryExecutor
+     */
+    public static QueryExecutor getInstance()
+    {
+        if (query_executor_instance == null)
+            query_executor_instance = new QueryExecutor(THREADS, QUEUE_CAPACITY, TIMEOUT_MS);
+
+        return query_executor_instance;
+    }
+
+    /**
+     * Queues a query for the query threads.
+     * A query still waiting in the queue when it times out is skipped instead of being run.
+     *
+     * @param query the repository call to run
+     * @return a future completed with the result of the query, or with the exception it threw,
+     *         or with a TimeoutException if the query took longer than the configured timeout
+     * @param <T> the type of the result of the query
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> query) {
+        return CompletableFuture.supplyAsync(query, executor())
+                .orTimeout(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the number of queries waiting for a free thread.
+     *
+     * @return the length of the query queue
+     */
+    public int getQueueLength() {
+        ThreadPoolExecutor current = executor;
+        return current == null ? 0 : current.getQueue().size();
+    }
+
+    /**
+     * Stops the query threads of the singleton instance when the application shuts down.
+     * The queries still running are interrupted.
+     */
+    @PreDestroy
+    public void shutdown() {
+        getInstance().close();
+    }
+
+    /**
+     * Stops the query threads.
+     * The threads are started again if the executor is used afterwards.
+     */
+    public synchronized void close() {
+        ThreadPoolExecutor stopped = executor;
+        if (stopped != null) {
+            executor = null;
+            stopped.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the query threads and their queue, creating them on first use.
+     *
+     * @return the executor of the query threads
+     */
+    private ThreadPoolExecutor executor() {
+        ThreadPoolExecutor current = executor;
+        if (current == null) {
+            synchronized (this) {
+                current = executor;
+                if (current == null) {
+                    AtomicInteger threadCount = new AtomicInteger();
+                    current = new ThreadPoolExecutor(THREADS, THREADS, 0, TimeUnit.MILLISECONDS,
+                            new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                            runnable -> {
+                                Thread thread = new Thread(runnable, "api-query-" + threadCount.incrementAndGet());
+                                thread.setDaemon(true);
+                                return thread;
+                            },
+                            new ThreadPoolExecutor.AbortPolicy());
+                    executor = current;
+
+                    Gauge.builder("library.query.queue", this, QueryExecutor::getQueueLength)
+                            .description("Number of async queries waiting for a query thread")
+                            .register(Metrics.globalRegistry);
+                }
+            }
+        }
+        return current;
+    }
+}
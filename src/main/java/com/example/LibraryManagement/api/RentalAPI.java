@@ -1,69 +1,135 @@
 package com.example.LibraryManagement.api;
 
+import com.example.LibraryManagement.database.CatalogVersion;
 import com.example.LibraryManagement.database.RentalRepository;
-import com.example.LibraryManagement.database.UserRepository;
+import com.example.LibraryManagement.models.Page;
 import com.example.LibraryManagement.models.Rental;
+import com.example.LibraryManagement.models.RentalOutcome;
 import com.example.LibraryManagement.models.User;
-import com.example.LibraryManagement.security.Utils;
-import jakarta.servlet.http.HttpServletRequest;
+import com.example.LibraryManagement.security.AuthenticationFilter;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * The RentalAPI class handles rental-related API endpoints.
- * It provides methods for getting all rentals, renting a book, and returning a book.
+ * It provides methods for getting all rentals, getting the rentals of the authenticated user, renting a book, and returning a book.
  */
 @RestController
 @RequestMapping("/api/rentals")
 public class RentalAPI {
+    /**
+     * The maximum number of books in a batch rent or return.
+     */
+    private static final int MAX_BATCH_SIZE = 100;
+
     /**
      * The RentalRepository instance used to interact with the database.
      */
     private final RentalRepository rentalRepository;
     /**
-     * The UserRepository instance used to interact with the database.
+     * The Pagination instance used to resolve the page sizes.
      */
-    private final UserRepository userRepository;
+    private final Pagination pagination;
+    /**
+     * The QueryExecutor instance used to run the queries of the async endpoints.
+     */
+    private final QueryExecutor queryExecutor;
 
     /**
      * Constructor for the RentalAPI class.
-     * Initializes the RentalRepository and UserRepository instances.
+     * Initializes the RentalRepository, Pagination and QueryExecutor instances.
      */
     public RentalAPI() {
         this.rentalRepository = RentalRepository.getInstance();
-        this.userRepository = UserRepository.getInstance();
+        this.pagination = Pagination.getInstance();
+        this.queryExecutor = QueryExecutor.getInstance();
     }
 
     /**
-     * API endpoint to retrieve a list of all rentals from the database.
+     * API endpoint to retrieve one page of rentals from the database, ordered by id.
+     * Pages are requested with the cursor returned by the previous page.
+     * The response carries the ETag of the catalog version, and a request with a matching If-None-Match header
+     * gets a 304 Not Modified without querying the database.
      *
-     * @return an ArrayList of Rental objects representing all rentals in the database
+     * @param cursor the nextCursor returned by the previous page, or 0 for the first page
+     * @param limit the maximum number of rentals in the page, capped to the configured maximum page size
+     * @param webRequest the HTTP request, used to check the If-None-Match header
+     * @return a Page of Rental objects and the cursor of the next page, or null if the catalog has not changed
      */
     @GetMapping("")
-    public ArrayList<Rental> getAllRentals() {
-        return rentalRepository.getAllRentals();
+    public Page<Rental> getAllRentals(@RequestParam(defaultValue = "0") int cursor, @RequestParam(required = false) Integer limit, WebRequest webRequest) {
+        if (webRequest.checkNotModified(CatalogVersion.etag())) {
+            return null;
+        }
+        return rentalRepository.getRentalsPage(cursor, pagination.pageSize(limit));
+    }
+
+    /**
+     * Async variant of the rental listing, running the query on the QueryExecutor instead of the servlet thread.
+     * The ETag is checked on the servlet thread, so a 304 Not Modified never waits for a query thread.
+     *
+     * @param cursor the nextCursor returned by the previous page, or 0 for the first page
+     * @param limit the maximum number of rentals in the page, capped to the configured maximum page size
+     * @param webRequest the HTTP request, used to check the If-None-Match header
+     * @return a future of a Page of Rental objects and the cursor of the next page, or null if the catalog has not changed
+     */
+    @GetMapping("/async")
+    public CompletableFuture<Page<Rental>> getAllRentalsAsync(@RequestParam(defaultValue = "0") int cursor, @RequestParam(required = false) Integer limit, WebRequest webRequest) {
+        if (webRequest.checkNotModified(CatalogVersion.etag())) {
+            return null;
+        }
+        int pageSize = pagination.pageSize(limit);
+        return queryExecutor.supply(() -> rentalRepository.getRentalsPage(cursor, pageSize));
+    }
+
+    /**
+     * API endpoint to export all rentals from the database as newline-delimited JSON.
+     * Rows are streamed to the client while they are read from the database, one JSON object per line.
+     *
+     * @return a ResponseEntity streaming every rental as one line of JSON
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportRentals() {
+        return NdjsonExport.<Rental>stream(rentalRepository::forEachRental);
+    }
+
+    /**
+     * API endpoint to retrieve the rentals of the authenticated user, ordered by book id.
+     * Requires Basic HTTP Authentication or a session token.
+     *
+     * @param user the user authenticated by the AuthenticationFilter, or null if the credentials are missing or wrong
+     * @return a ResponseEntity with the rentals of the user
+     * @throws ResponseStatusException if the credentials are wrong
+     */
+    @GetMapping("/me")
+    public ResponseEntity<ArrayList<Rental>> getMyRentals(@RequestAttribute(name = AuthenticationFilter.USER_ATTRIBUTE, required = false) User user) {
+        // Checking that the AuthenticationFilter authenticated the user with a session token or Basic credentials
+        if (user == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Wrong user credentials");
+        }
+        return ResponseEntity.ok(rentalRepository.findRentalsByUserId(user.getId()));
     }
 
     /**
      * API endpoint to rent a book to a user in the database.
-     * Requires Basic HTTP Authentication.
+     * Requires Basic HTTP Authentication or a session token.
      *
      * @param id the id of the book to be rented
-     * @param request the HTTP request containing the username and password
+     * @param user the user authenticated by the AuthenticationFilter, or null if the credentials are missing or wrong
      * @return a ResponseEntity with an appropriate status code and message
      */
     @PostMapping("/rent/{id}")
-    public ResponseEntity<String> rentBook(@PathVariable int id, HttpServletRequest request) {
-        // Decoding the username and password
-        String[] decodedCredentials = Utils.decodeAuthHeader(request.getHeader("Authorization"));
-        String username = decodedCredentials[0];
-        String hashedPassword = decodedCredentials[1];
-
-        // Authenticating the user
-        User user = userRepository.authenticateUser(username, hashedPassword).orElse(null);
+    public ResponseEntity<String> rentBook(@PathVariable int id, @RequestAttribute(name = AuthenticationFilter.USER_ATTRIBUTE, required = false) User user) {
+        // Checking that the AuthenticationFilter authenticated the user with a session token or Basic credentials
         if (user == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Wrong user credentials");
         }
@@ -72,7 +138,7 @@ public class RentalAPI {
             if(rentalRepository.rentBook(rental)) {
                 return ResponseEntity.status(HttpStatus.CREATED).body("Book rented successfully");
             } else {
-                return ResponseEntity.status(HttpStatus.CONFLICT).body("Book already rented");
+                return ResponseEntity.status(HttpStatus.CONFLICT).body("No copy of the book is available");
             }
 
         }
@@ -80,21 +146,15 @@ public class RentalAPI {
 
     /**
      * API endpoint to return a book from the database.
-     * Requires Basic HTTP Authentication.
+     * Requires Basic HTTP Authentication or a session token.
      *
      * @param id the id of the book to be returned
-     * @param request the HTTP request containing the username and password
+     * @param user the user authenticated by the AuthenticationFilter, or null if the credentials are missing or wrong
      * @return a ResponseEntity with an appropriate status code and message
      */
     @PostMapping("/return/{id}")
-    public ResponseEntity<String> returnBook(@PathVariable int id, HttpServletRequest request) {
-        // Decoding the username and password
-        String[] decodedCredentials = Utils.decodeAuthHeader(request.getHeader("Authorization"));
-        String username = decodedCredentials[0];
-        String hashedPassword = decodedCredentials[1];
-
-        // Authenticating the user
-        User user = userRepository.authenticateUser(username, hashedPassword).orElse(null);
+    public ResponseEntity<String> returnBook(@PathVariable int id, @RequestAttribute(name = AuthenticationFilter.USER_ATTRIBUTE, required = false) User user) {
+        // Checking that the AuthenticationFilter authenticated the user with a session token or Basic credentials
         if (user == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Wrong user credentials");
         }
@@ -108,4 +168,50 @@ public class RentalAPI {
             }
         }
     }
+
+    /**
+     * API endpoint to rent many books to a user in a single transaction.
+     * Requires Basic HTTP Authentication or a session token.
+     *
+     * @param bookIds the ids of the books to be rented
+     * @param user the user authenticated by the AuthenticationFilter, or null if the credentials are missing or wrong
+     * @return a ResponseEntity with the outcome of every book, in request order
+     */
+    @PostMapping("/rent")
+    public ResponseEntity<ArrayList<RentalOutcome>> rentBooks(@RequestBody List<Integer> bookIds, @RequestAttribute(name = AuthenticationFilter.USER_ATTRIBUTE, required = false) User user) {
+        authenticateBatch(bookIds, user);
+        return ResponseEntity.ok(rentalRepository.rentBooks(user.getId(), bookIds));
+    }
+
+    /**
+     * API endpoint to return many rented books of a user in a single transaction.
+     * Requires Basic HTTP Authentication or a session token.
+     *
+     * @param bookIds the ids of the books to be returned
+     * @param user the user authenticated by the AuthenticationFilter, or null if the credentials are missing or wrong
+     * @return a ResponseEntity with the outcome of every book, in request order
+     */
+    @PostMapping("/return")
+    public ResponseEntity<ArrayList<RentalOutcome>> returnBooks(@RequestBody List<Integer> bookIds, @RequestAttribute(name = AuthenticationFilter.USER_ATTRIBUTE, required = false) User user) {
+        authenticateBatch(bookIds, user);
+        return ResponseEntity.ok(rentalRepository.returnBooks(user.getId(), bookIds));
+    }
+
+    /**
+     * Checks that the user of a batch rent or return is authenticated, and checks the size of the batch.
+     *
+     * @param bookIds the ids of the books in the batch
+     * @param user the user authenticated by the AuthenticationFilter, or null if the credentials are missing or wrong
+     * @throws ResponseStatusException if the credentials are wrong, or if the batch is empty, too large or contains a null id
+     */
+    private void authenticateBatch(List<Integer> bookIds, User user) {
+        // Checking that the AuthenticationFilter authenticated the user with a session token or Basic credentials
+        if (user == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Wrong user credentials");
+        }
+
+        if (bookIds.isEmpty() || bookIds.size() > MAX_BATCH_SIZE || bookIds.contains(null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Expected between 1 and " + MAX_BATCH_SIZE + " book ids");
+        }
+    }
 }
@@ -1,18 +1,26 @@
 package com.example.LibraryManagement.api;
 
 import com.example.LibraryManagement.database.UserRepository;
+import com.example.LibraryManagement.models.AuthToken;
 import com.example.LibraryManagement.models.RegisterInfo;
+import com.example.LibraryManagement.models.Page;
 import com.example.LibraryManagement.models.User;
+import com.example.LibraryManagement.models.UserExport;
+import com.example.LibraryManagement.security.AuthTokenCache;
+import com.example.LibraryManagement.security.AuthenticationFilter;
 import com.example.LibraryManagement.security.Utils;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * The UserAPI class handles user-related API endpoints.
- * It provides methods to retrieve all users register a new user.
+ * It provides methods to retrieve all users, register a new user and log in.
  */
 @RestController
 @RequestMapping("/api/users")
@@ -21,23 +29,76 @@ public class UserAPI {
      * The UserRepository instance used to interact with the database.
      */
     private final UserRepository userRepository;
+    /**
+     * The AuthTokenCache instance used to issue session tokens.
+     */
+    private final AuthTokenCache authTokenCache;
+    /**
+     * The Pagination instance used to resolve the page sizes.
+     */
+    private final Pagination pagination;
+    /**
+     * The QueryExecutor instance used to run the queries of the async endpoints.
+     */
+    private final QueryExecutor queryExecutor;
 
     /**
      * Constructor for the UserAPI class.
-     * Initializes the UserRepository instance.
+     * Initializes the UserRepository, AuthTokenCache, Pagination and QueryExecutor instances.
      */
     public UserAPI() {
         this.userRepository = UserRepository.getInstance();
+        this.authTokenCache = AuthTokenCache.getInstance();
+        this.pagination = Pagination.getInstance();
+        this.queryExecutor = QueryExecutor.getInstance();
     }
 
     /**
-     * API endpoint to retrieve a list of all users from the database.
+     * API endpoint to retrieve one page of users from the database, ordered by id.
+     * Pages are requested with the cursor returned by the previous page.
      *
-     * @return an ArrayList of User objects representing all users in the database
+     * @param cursor the nextCursor returned by the previous page, or 0 for the first page
+     * @param limit the maximum number of users in the page, capped to the configured maximum page size
+     * @return a Page of User objects and the cursor of the next page
      */
     @GetMapping("")
-    public ArrayList<User> getAllUsers() {
-        return userRepository.getAllUsers();
+    public Page<User> getAllUsers(@RequestParam(defaultValue = "0") int cursor, @RequestParam(required = false) Integer limit) {
+        return userRepository.getUsersPage(cursor, pagination.pageSize(limit));
+    }
+
+    /**
+     * Async variant of the user listing, running the query on the QueryExecutor instead of the servlet thread.
+     *
+     * @param cursor the nextCursor returned by the previous page, or 0 for the first page
+     * @param limit the maximum number of users in the page, capped to the configured maximum page size
+     * @return a future of a Page of User objects and the cursor of the next page
+     */
+    @GetMapping("/async")
+    public CompletableFuture<Page<User>> getAllUsersAsync(@RequestParam(defaultValue = "0") int cursor, @RequestParam(required = false) Integer limit) {
+        int pageSize = pagination.pageSize(limit);
+        return queryExecutor.supply(() -> userRepository.getUsersPage(cursor, pageSize));
+    }
+
+    /**
+     * API endpoint to export all users from the database as newline-delimited JSON.
+     * Rows are streamed to the client while they are read from the database, one JSON object per line.
+     * Requires Basic HTTP Authentication or a session token, and admin privileges. The password hashes are left out.
+     *
+     * @param user the user authenticated by the AuthenticationFilter, or null if the credentials are missing or wrong
+     * @return a ResponseEntity streaming every user as one line of JSON
+     * @throws ResponseStatusException if the credentials are wrong or the user is not an admin
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestAttribute(name = AuthenticationFilter.USER_ATTRIBUTE, required = false) User user) {
+        // Checking that the AuthenticationFilter authenticated the user with a session token or Basic credentials
+        if (user == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Wrong user credentials");
+        }
+        // Checking if the user is an admin
+        else if(!user.getAdmin()) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "User is not an admin");
+        }
+        return NdjsonExport.<UserExport>stream(action -> userRepository.forEachUser(row -> action.accept(new UserExport(row))));
     }
 
     /**
@@ -58,4 +119,30 @@ public class UserAPI {
             return ResponseEntity.status(HttpStatus.CONFLICT).body("Username already exists");
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * API endpoint to log in and receive a short-lived session token.
+     * Requires Basic HTTP Authentication.
+     * The token can be sent as "Authorization: Bearer {token}" instead of the user credentials,
+     * which skips the password hashing and the database lookup on every request.
+     *
+     * @param authHeader the Authorization header of the request, which must carry Basic credentials
+     * @param user the user authenticated by the AuthenticationFilter, or null if the credentials are missing or wrong
+     * @return a ResponseEntity with the session token, or an appropriate status code if the credentials are wrong
+     */
+    @PostMapping("/login")
+    public ResponseEntity<AuthToken> login(@RequestHeader(name = "Authorization", required = false) String authHeader,
+                                           @RequestAttribute(name = AuthenticationFilter.USER_ATTRIBUTE, required = false) User user) {
+        // Only user credentials can be exchanged for a token, so an existing token cannot extend itself
+        if (authHeader == null || !authHeader.startsWith("Basic ")) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        String token = authTokenCache.issueToken(user);
+        return ResponseEntity.status(HttpStatus.OK).body(new AuthToken(token, authTokenCache.getTtlSeconds()));
+    }
+}
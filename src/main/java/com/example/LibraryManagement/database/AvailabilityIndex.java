@@ -0,0 +1,59 @@
+package com.example.LibraryManagement.database;
+
+import java.util.BitSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * AvailabilityIndex class is responsible for answering availability checks from memory.
+ * It holds one bit per book id, set if the book exists and is available.
+ * It is kept up to date by the repositories after every change to the availability of a book.
+ */
+class AvailabilityIndex {
+    /**
+     * The ids of the available books.
+     */
+    private final BitSet available = new BitSet();
+    /**
+     * The lock letting many availability checks run together, but not while the index changes.
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Checks if a book is available.
+     *
+     * @param id the id of the book to be checked
+     * @return true if the book exists and is available, false otherwise
+     */
+    boolean isAvailable(int id) {
+        if (id < 0) {
+            return false;
+        }
+
+        lock.readLock().lock();
+        try {
+            return available.get(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Records the availability of a book.
+     * Deleted books are recorded as not available.
+     *
+     * @param id the id of the book
+     * @param availability true if the book exists and is available, false otherwise
+     */
+    void set(int id, boolean availability) {
+        if (id < 0) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            available.set(id, availability);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -1,12 +1,25 @@
 package com.example.LibraryManagement.database;
 
 import com.example.LibraryManagement.models.Book;
+import com.example.LibraryManagement.models.BulkAddResult;
+import com.example.LibraryManagement.models.BulkRowOutcome;
+import com.example.LibraryManagement.models.CacheMetrics;
+import com.example.LibraryManagement.models.Page;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Repository;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * BookRepository class is responsible for managing book data in the SQLite database.
@@ -15,23 +28,142 @@ import java.util.Optional;
 @Repository
 public class BookRepository {
     /**
-     * The URL of the SQLite database to connect to.
+     * The number of rows inserted per transaction by a bulk import.
      */
-    private static String DB_URL;
+    private static int BULK_CHUNK_SIZE;
+    /**
+     * The maximum number of books held in the book cache.
+     */
+    private static long BOOK_CACHE_MAX_ENTRIES;
+    /**
+     * The singleton instance of ConnectionPool.
+     */
+    private final ConnectionPool connection_pool_instance;
+    /**
+     * The singleton instance of DatabaseWriter, running every write of the repository.
+     */
+    private final DatabaseWriter database_writer_instance;
+    /**
+     * The timers of the public methods of BookRepository.
+     */
+    private final RepositoryTimers timers = new RepositoryTimers("BookRepository");
     /**
      * The singleton instance of BookRepository.
      */
     private static BookRepository book_repository_instance = null;
+    /**
+     * The books recently looked up by id, indexed by id.
+     * It is created on first use, once the configuration has been read from application.properties.
+     */
+    private volatile Cache<Integer, Book> bookCache;
+    /**
+     * The availability of every book, answering availability checks without querying the database.
+     * It is loaded on first use, or when the application is ready.
+     */
+    private volatile AvailabilityIndex availabilityIndex;
+    /**
+     * The query used to find a book by its id.
+     */
+    static final String FIND_BOOK_BY_ID_QUERY = """
+            SELECT *
+            FROM books
+            WHERE id=?
+            """;
+    /**
+     * The query used to find the books with a given title.
+     */
+    static final String FIND_BOOKS_BY_TITLE_QUERY = """
+            SELECT *
+            FROM books
+            WHERE title=?
+            """;
+    /**
+     * The query used to find the books of a given author.
+     */
+    static final String FIND_BOOKS_BY_AUTHOR_QUERY = """
+            SELECT *
+            FROM books
+            WHERE author=?
+            """;
+    /**
+     * The query used to read one page of books.
+     */
+    static final String BOOKS_PAGE_QUERY = """
+            SELECT *
+            FROM books
+            WHERE id > ?
+            ORDER BY id
+            LIMIT ?
+            """;
+    /**
+     * The query used to search the books by title and author, best matches first.
+     */
+    static final String SEARCH_BOOKS_QUERY = """
+            SELECT books.*
+            FROM books_fts
+            JOIN books ON books.id = books_fts.rowid
+            WHERE books_fts MATCH ?
+            ORDER BY books_fts.rank
+            LIMIT ? OFFSET ?
+            """;
+    /**
+     * The query used to load the availability index.
+     */
+    static final String AVAILABLE_BOOK_IDS_QUERY = """
+            SELECT id
+            FROM books
+            WHERE available > 0
+            """;
+    /**
+     * The query used to find the books added after a given id, with their number of available copies.
+     */
+    static final String BOOK_IDS_AFTER_QUERY = """
+            SELECT id, available
+            FROM books
+            WHERE id > ?
+            """;
+    /**
+     * The query used to insert a book, with all of its copies available.
+     */
+    static final String INSERT_BOOK_QUERY = """
+            INSERT INTO books (title, author, copies, available)
+            VALUES (?1, ?2, ?3, ?3)
+            """;
+    /**
+     * The query used to change the number of copies of a book, only if it still covers the rented copies.
+     * The expressions of the SET clause read the values from before the update.
+     */
+    static final String UPDATE_BOOK_COPIES_QUERY = """
+            UPDATE books
+            SET available=available+?-copies, copies=?
+            WHERE id=? AND available+?-copies >= 0
+            RETURNING available
+            """;
+    /**
+     * The query used to delete a book by its id.
+     */
+    static final String DELETE_BOOK_QUERY = """
+            DELETE FROM books
+            WHERE id=?
+            """;
 
 
     /**
      * Constructor for BookRepository class.
+     * Connections to the SQLite database are borrowed from the shared ConnectionPool for reads,
+     * while writes are queued for the DatabaseWriter.
      *
-     * @param dbUrl the URL of the SQLite database to connect to. This value is obtained from the application.properties file.
+     * @param bulkChunkSize the number of rows inserted per transaction by a bulk import. This value is obtained from the application.properties file.
+     * @param bookCacheMaxEntries the maximum number of books held in the book cache. This value is obtained from the application.properties file.
      */
-    private BookRepository(@Value("${db.url}") String dbUrl) {
-        // Initializing DB_URL from application.properties
-        DB_URL = dbUrl;
+    private BookRepository(@Value("${db.bulk.chunk-size}") int bulkChunkSize,
+                           @Value("${db.book-cache.max-entries}") long bookCacheMaxEntries) {
+        // Initializing BULK_CHUNK_SIZE and BOOK_CACHE_MAX_ENTRIES from application.properties
+        BULK_CHUNK_SIZE = bulkChunkSize;
+        BOOK_CACHE_MAX_ENTRIES = bookCacheMaxEntries;
+
+        connection_pool_instance = ConnectionPool.getInstance();
+        database_writer_instance = DatabaseWriter.getInstance();
     }
 
     /**
@@ -43,33 +175,151 @@ public class BookRepository {
     public static BookRepository getInstance()
     {
         if (book_repository_instance == null)
-            book_repository_instance = new BookRepository(DB_URL);
+            book_repository_instance = new BookRepository(BULK_CHUNK_SIZE, BOOK_CACHE_MAX_ENTRIES);
 
         return book_repository_instance;
     }
 
     /**
-     * Adds a book to the database.
+     * Adds a book to the database, with all of its copies available.
      *
      * @param book the book to be added
      * @return true if the addition is successful, false otherwise
      */
     public boolean addBook(Book book) {
-        String query = """
-                INSERT INTO books (title, author)
-                VALUES (?,?)
-                """;
+        return timers.record("addBook", () -> {
+            return database_writer_instance.execute(connection -> {
+                try(PreparedStatement prepStatement = connection.prepareStatement(INSERT_BOOK_QUERY, Statement.RETURN_GENERATED_KEYS)) {
+                    prepStatement.setString(1 ,book.getTitle());
+                    prepStatement.setString(2 ,book.getAuthor());
+                    prepStatement.setInt(3 ,book.getCopies());
+
+                    // A book that already exists is ignored by the (title, author) unique constraint
+                    if (prepStatement.executeUpdate() == 0) {
+                        return false;
+                    }
+
+                    // New books are available if they have any copy
+                    ResultSet generatedKeys = prepStatement.getGeneratedKeys();
+                    if (generatedKeys.next()) {
+                        availabilityIndex().set(generatedKeys.getInt(1), book.getCopies() > 0);
+                    }
+                    CatalogVersion.bump();
+                    return true;
+                }
+            });
+        });
+    }
 
-        try(Connection connection = DriverManager.getConnection(DB_URL);
-            PreparedStatement prepStatement = connection.prepareStatement(query)) {
-            prepStatement.setString(1 ,book.getTitle());
-            prepStatement.setString(2 ,book.getAuthor());
+    /**
+     * Adds many books to the database.
+     * The books are read one by one from the iterator and inserted with JDBC batches,
+     * committing one transaction every BULK_CHUNK_SIZE rows, so the whole import never has to be held in memory.
+     * Each chunk is read on the calling thread and only then queued for the DatabaseWriter,
+     * so a slow upload never holds up the other writes.
+     * Books that already exist are absorbed by the (title, author) unique constraint and reported as duplicates.
+     * Books without a title or an author, or with a negative number of copies, are skipped and reported as invalid.
+     * If the import fails, the chunks committed before the failure are kept.
+     *
+     * @param books the books to be added, in request order
+     * @return the outcome of every row and the number of created, duplicate and invalid rows
+     */
+    public BulkAddResult addBooks(Iterator<Book> books) {
+        return timers.record("addBooks", () -> {
+            BulkAddResult result = new BulkAddResult();
+
+            // The outcomes of the current chunk in request order, and the books waiting to be inserted with their outcomes
+            ArrayList<BulkRowOutcome> chunk = new ArrayList<>(BULK_CHUNK_SIZE);
+            ArrayList<Book> batchedBooks = new ArrayList<>(BULK_CHUNK_SIZE);
+            ArrayList<BulkRowOutcome> batched = new ArrayList<>(BULK_CHUNK_SIZE);
+            long index = 0;
+
+            while (books.hasNext()) {
+                Book book = books.next();
+
+                if (book == null || book.getTitle() == null || book.getAuthor() == null || book.getCopies() < 0) {
+                    chunk.add(new BulkRowOutcome(index++, BulkRowOutcome.Status.INVALID));
+                } else {
+                    BulkRowOutcome outcome = new BulkRowOutcome(index++, BulkRowOutcome.Status.CREATED);
+                    chunk.add(outcome);
+                    batchedBooks.add(book);
+                    batched.add(outcome);
+                }
+
+                if (chunk.size() == BULK_CHUNK_SIZE) {
+                    commitChunk(chunk, batchedBooks, batched, result);
+                }
+            }
+            commitChunk(chunk, batchedBooks, batched, result);
+            return result;
+        });
+    }
 
-            return prepStatement.executeUpdate() > 0;
+    /**
+     * Inserts the pending books of a bulk import in one batch and one transaction, and records the outcomes of the chunk.
+     * Rows ignored by the (title, author) unique constraint report no change and are marked as duplicates.
+     * The books added by the chunk are recorded in the availability index.
+     *
+     * @param chunk the outcomes of the chunk in request order, cleared afterwards
+     * @param batchedBooks the books waiting to be inserted, cleared afterwards
+     * @param batched the outcomes of the books waiting to be inserted, cleared afterwards
+     * @param result the result the outcomes of the chunk are added to
+     */
+    private void commitChunk(ArrayList<BulkRowOutcome> chunk, ArrayList<Book> batchedBooks,
+                             ArrayList<BulkRowOutcome> batched, BulkAddResult result) {
+        if (!batched.isEmpty()) {
+            database_writer_instance.execute(connection -> {
+                connection.setAutoCommit(false);
+
+                try(Statement statement = connection.createStatement();
+                    PreparedStatement prepStatement = connection.prepareStatement(INSERT_BOOK_QUERY);
+                    PreparedStatement newIdsStatement = connection.prepareStatement(BOOK_IDS_AFTER_QUERY)) {
+                    // No other write runs meanwhile, so the books added by the chunk are the ones above the highest id before it
+                    int lastId = 0;
+                    try (ResultSet resultSet = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM books")) {
+                        if (resultSet.next()) {
+                            lastId = resultSet.getInt(1);
+                        }
+                    }
+
+                    for (Book book : batchedBooks) {
+                        prepStatement.setString(1, book.getTitle());
+                        prepStatement.setString(2, book.getAuthor());
+                        prepStatement.setInt(3, book.getCopies());
+                        prepStatement.addBatch();
+                    }
+
+                    int[] updateCounts = prepStatement.executeBatch();
+                    for (int i = 0; i < updateCounts.length; i++) {
+                        if (updateCounts[i] == 0) {
+                            batched.get(i).setStatus(BulkRowOutcome.Status.DUPLICATE);
+                        }
+                    }
+
+                    newIdsStatement.setInt(1, lastId);
+                    ResultSet resultSet = newIdsStatement.executeQuery();
+                    LinkedHashMap<Integer, Boolean> newBooks = new LinkedHashMap<>();
+                    while (resultSet.next()) {
+                        newBooks.put(resultSet.getInt("id"), resultSet.getInt("available") > 0);
+                    }
+                    connection.commit();
+
+                    // New books are available if they have any copy
+                    newBooks.forEach(availabilityIndex()::set);
+                    if (!newBooks.isEmpty()) {
+                        CatalogVersion.bump();
+                    }
+                }
+                return null;
+            });
+        }
 
-        } catch(SQLException e) {
-            throw new RuntimeException(e);
+        for (BulkRowOutcome outcome : chunk) {
+            result.add(outcome);
         }
+        chunk.clear();
+        batchedBooks.clear();
+        batched.clear();
     }
 
     /**
@@ -80,22 +330,22 @@ public class BookRepository {
      * @return true if the book was successfully deleted, false otherwise
      */
     public boolean deleteBookByID(int id) {
-        try(Connection connection = DriverManager.getConnection(DB_URL)) {
-            connection.prepareStatement("PRAGMA foreign_keys = ON").execute();
-
-            String query = """
-                DELETE FROM books
-                WHERE id=?
-                """;
-
-            try(PreparedStatement prepStatement = connection.prepareStatement(query)) {
-                prepStatement.setInt(1 ,id);
-
-                return prepStatement.executeUpdate() > 0;
-            }
-        } catch(SQLException e) {
-            throw new RuntimeException(e);
-        }
+        return timers.record("deleteBookByID", () -> {
+            // Foreign keys are enforced on every connection, so related rentals are deleted as well
+            return database_writer_instance.execute(connection -> {
+                try(PreparedStatement prepStatement = connection.prepareStatement(DELETE_BOOK_QUERY)) {
+                    prepStatement.setInt(1 ,id);
+
+                    boolean deleted = prepStatement.executeUpdate() > 0;
+                    bookCache().invalidate(id);
+                    availabilityIndex().set(id, false);
+                    if (deleted) {
+                        CatalogVersion.bump();
+                    }
+                    return deleted;
+                }
+            });
+        });
     }
 
     /**
@@ -110,65 +360,73 @@ public class BookRepository {
      * @return true if the book was successfully updated, false otherwise
      */
     public boolean updateBookById(int id, Book  newBook) {
-        Book oldBook = findBookById(id).orElse(null);
-        if(oldBook == null || newBook == null || oldBook.equals(newBook)) {
-            return false;
-        }
-
-        // If the new values are null, the old ones are used
-        if(newBook.getTitle() == null)
-            newBook.setTitle(oldBook.getTitle());
-        if(newBook.getAuthor() == null)
-            newBook.setAuthor(oldBook.getAuthor());
-
-        String query = """
-                UPDATE books
-                SET title=?, author=?
-                WHERE id=?
-                """;
-
-        try(Connection connection = DriverManager.getConnection(DB_URL);
-            PreparedStatement prepStatement = connection.prepareStatement(query)) {
+        return timers.record("updateBookById", () -> {
+            Book oldBook = findBookById(id).orElse(null);
+            if(oldBook == null || newBook == null || oldBook.equals(newBook)) {
+                return false;
+            }
 
-            prepStatement.setString(1 , newBook.getTitle());
-            prepStatement.setString(2 , newBook.getAuthor());
-            prepStatement.setInt(3 ,id);
+            // If the new values are null, the old ones are used
+            if(newBook.getTitle() == null)
+                newBook.setTitle(oldBook.getTitle());
+            if(newBook.getAuthor() == null)
+                newBook.setAuthor(oldBook.getAuthor());
 
-            return prepStatement.executeUpdate() > 0;
+            String query = """
+                    UPDATE books
+                    SET title=?, author=?
+                    WHERE id=?
+                    """;
 
-        } catch(SQLException e) {
-            throw new RuntimeException(e);
-        }
+            return database_writer_instance.execute(connection -> {
+                try(PreparedStatement prepStatement = connection.prepareStatement(query)) {
+
+                    prepStatement.setString(1 , newBook.getTitle());
+                    prepStatement.setString(2 , newBook.getAuthor());
+                    prepStatement.setInt(3 ,id);
+
+                    boolean updated = prepStatement.executeUpdate() > 0;
+                    bookCache().invalidate(id);
+                    if (updated) {
+                        CatalogVersion.bump();
+                    }
+                    return updated;
+                }
+            });
+        });
     }
 
     /**
-     * Updates the availability of a book in the database.
-     * If the book is not found in the database, this method returns false.
-     * Otherwise, it updates the availability of the book with the given id
+     * Updates the number of copies of a book in the database.
+     * The copies added or removed are added to or removed from the available ones, so the rented copies stay rented.
+     * If the book is not found in the database, or if more of its copies are rented than the new number of copies,
+     * this method returns false. Otherwise, it updates the number of copies of the book with the given id
      * and returns true.
      *
      * @param id the unique id of the book to be updated
-     * @param availability the new value for the availability of the book
+     * @param copies the new number of copies of the book
      * @return true if the book was successfully updated, false otherwise
      */
-    public boolean updateBookAvailability(int id, boolean availability) {
-        String query = """
-                UPDATE books
-                SET availability=?
-                WHERE id=?
-                """;
-
-        try(Connection connection = DriverManager.getConnection(DB_URL);
-            PreparedStatement prepStatement = connection.prepareStatement(query)) {
-
-            prepStatement.setBoolean(1 , availability);
-            prepStatement.setInt(2 ,id);
-
-            return prepStatement.executeUpdate() > 0;
-
-        } catch(SQLException e) {
-            throw new RuntimeException(e);
-        }
+    public boolean updateBookCopies(int id, int copies) {
+        return timers.record("updateBookCopies", () -> {
+            return database_writer_instance.execute(connection -> {
+                try(PreparedStatement prepStatement = connection.prepareStatement(UPDATE_BOOK_COPIES_QUERY)) {
+
+                    prepStatement.setInt(1 , copies);
+                    prepStatement.setInt(2 , copies);
+                    prepStatement.setInt(3 ,id);
+                    prepStatement.setInt(4 , copies);
+
+                    try (ResultSet resultSet = prepStatement.executeQuery()) {
+                        if (!resultSet.next()) {
+                            return false;
+                        }
+                        bookAvailabilityChanged(id, resultSet.getInt("available") > 0);
+                        return true;
+                    }
+                }
+            });
+        });
     }
 
     /**
@@ -177,32 +435,118 @@ public class BookRepository {
      * @return an ArrayList containing all books in the database
      */
     public ArrayList<Book> getAllBooks() {
-        String query = """
-                    SELECT *
-                    FROM books
-                    """;
-
-        try(Connection connection = DriverManager.getConnection(DB_URL);
-            PreparedStatement prepStatement = connection.prepareStatement(query)) {
-
-            ResultSet resultSet = prepStatement.executeQuery();
-
-            ArrayList<Book> allBooks = new ArrayList<>();
-            while (resultSet.next()) {
-                Book book = new Book(
-                        resultSet.getInt("id"),
-                        resultSet.getString("title"),
-                        resultSet.getString("author"),
-                        resultSet.getBoolean("availability")
-                );
+        return timers.record("getAllBooks", () -> {
+            String query = """
+                        SELECT *
+                        FROM books
+                        """;
+
+            try(Connection connection = connection_pool_instance.getConnection();
+                PreparedStatement prepStatement = connection.prepareStatement(query)) {
+
+                ResultSet resultSet = prepStatement.executeQuery();
+
+                ArrayList<Book> allBooks = new ArrayList<>();
+                while (resultSet.next()) {
+                    Book book = new Book(
+                            resultSet.getInt("id"),
+                            resultSet.getString("title"),
+                            resultSet.getString("author"),
+                            resultSet.getInt("copies"),
+                            resultSet.getInt("available")
+                    );
+
+                    allBooks.add(book);
+                }
+                return allBooks;
+
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
 
-                allBooks.add(book);
+    /**
+     * Retrieves one page of books from the database, ordered by id.
+     * The page starts after the given cursor, so each page costs a single index range scan
+     * no matter how deep into the catalog it is.
+     *
+     * @param cursor the id of the last book of the previous page, or 0 for the first page
+     * @param limit the maximum number of books in the page
+     * @return a Page containing the books and the cursor of the next page
+     */
+    public Page<Book> getBooksPage(int cursor, int limit) {
+        return timers.record("getBooksPage", () -> {
+            try(Connection connection = connection_pool_instance.getConnection();
+                PreparedStatement prepStatement = connection.prepareStatement(BOOKS_PAGE_QUERY)) {
+                prepStatement.setInt(1, cursor);
+                // Fetching one extra row to know if there is a next page
+                prepStatement.setInt(2, limit + 1);
+
+                ResultSet resultSet = prepStatement.executeQuery();
+
+                ArrayList<Book> books = new ArrayList<>();
+                boolean hasNextPage = false;
+                while (resultSet.next()) {
+                    if (books.size() == limit) {
+                        hasNextPage = true;
+                        break;
+                    }
+
+                    Book book = new Book(
+                            resultSet.getInt("id"),
+                            resultSet.getString("title"),
+                            resultSet.getString("author"),
+                            resultSet.getInt("copies"),
+                            resultSet.getInt("available")
+                    );
+
+                    books.add(book);
+                }
+                Integer nextCursor = hasNextPage ? books.get(books.size() - 1).getId() : null;
+                return new Page<>(books, nextCursor);
+
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
             }
-            return allBooks;
+        });
+    }
 
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+    /**
+     * Streams all books from the database, ordered by id.
+     * Each row is handed to the action as soon as it is read, so no more than one book is held in memory at a time.
+     *
+     * @param action the action to perform on each book
+     */
+    public void forEachBook(Consumer<Book> action) {
+        timers.record("forEachBook", () -> {
+            String query = """
+                        SELECT *
+                        FROM books
+                        ORDER BY id
+                        """;
+
+            try(Connection connection = connection_pool_instance.getConnection();
+                PreparedStatement prepStatement = connection.prepareStatement(query)) {
+
+                ResultSet resultSet = prepStatement.executeQuery();
+
+                while (resultSet.next()) {
+                    Book book = new Book(
+                            resultSet.getInt("id"),
+                            resultSet.getString("title"),
+                            resultSet.getString("author"),
+                            resultSet.getInt("copies"),
+                            resultSet.getInt("available")
+                    );
+
+                    action.accept(book);
+                }
+
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        });
     }
 
 /**
@@ -212,34 +556,31 @@ public class BookRepository {
  * @return an ArrayList of Book objects that have the specified title
  */
     public ArrayList<Book> findBooksByTitle(String title) {
-        String query = """
-                    SELECT *
-                    FROM books
-                    WHERE title=?
-                    """;
-
-        try(Connection connection = DriverManager.getConnection(DB_URL);
-            PreparedStatement prepStatement = connection.prepareStatement(query)) {
-            prepStatement.setString(1, title);
-
-            ResultSet resultSet = prepStatement.executeQuery();
-
-            ArrayList<Book> books = new ArrayList<>();
-            while (resultSet.next()) {
-                Book book = new Book(
-                        resultSet.getInt("id"),
-                        resultSet.getString("title"),
-                        resultSet.getString("author"),
-                        resultSet.getBoolean("availability")
-                );
-
-                books.add(book);
+        return timers.record("findBooksByTitle", () -> {
+            try(Connection connection = connection_pool_instance.getConnection();
+                PreparedStatement prepStatement = connection.prepareStatement(FIND_BOOKS_BY_TITLE_QUERY)) {
+                prepStatement.setString(1, title);
+
+                ResultSet resultSet = prepStatement.executeQuery();
+
+                ArrayList<Book> books = new ArrayList<>();
+                while (resultSet.next()) {
+                    Book book = new Book(
+                            resultSet.getInt("id"),
+                            resultSet.getString("title"),
+                            resultSet.getString("author"),
+                            resultSet.getInt("copies"),
+                            resultSet.getInt("available")
+                    );
+
+                    books.add(book);
+                }
+                return books;
+
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
             }
-            return books;
-
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+        });
     }
 
     /**
@@ -249,51 +590,144 @@ public class BookRepository {
      * @return an ArrayList of Book objects that have the specified author
      */
     public ArrayList<Book> findBooksByAuthor(String author) {
-        String query = """
-                    SELECT *
-                    FROM books
-                    WHERE author=?
-                    """;
+        return timers.record("findBooksByAuthor", () -> {
+            try(Connection connection = connection_pool_instance.getConnection();
+                PreparedStatement prepStatement = connection.prepareStatement(FIND_BOOKS_BY_AUTHOR_QUERY)) {
+                prepStatement.setString(1, author);
+
+                ResultSet resultSet = prepStatement.executeQuery();
+
+                ArrayList<Book> books = new ArrayList<>();
+                while (resultSet.next()) {
+                    Book book = new Book(
+                            resultSet.getInt("id"),
+                            resultSet.getString("title"),
+                            resultSet.getString("author"),
+                            resultSet.getInt("copies"),
+                            resultSet.getInt("available")
+                    );
+
+                    books.add(book);
+                }
+                return books;
+
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
 
-        try(Connection connection = DriverManager.getConnection(DB_URL);
-            PreparedStatement prepStatement = connection.prepareStatement(query)) {
-            prepStatement.setString(1, author);
+    /**
+     * Searches the books whose title or author contain every term of a search text.
+     * Each term also matches the words it is a prefix of, so "harr pot" finds "Harry Potter".
+     * The books are ranked with BM25, best matches first, and paginated by offset since the ranking has no stable key.
+     *
+     * @param text the search text, as typed by the user
+     * @param offset the number of best matches to skip, 0 for the first page
+     * @param limit the maximum number of books in the page
+     * @return a Page containing the books and the offset of the next page
+     */
+    public Page<Book> searchBooks(String text, int offset, int limit) {
+        return timers.record("searchBooks", () -> {
+            String matchQuery = toMatchQuery(text);
+            if (matchQuery.isEmpty()) {
+                return new Page<Book>(new ArrayList<>(), null);
+            }
 
-            ResultSet resultSet = prepStatement.executeQuery();
+            try(Connection connection = connection_pool_instance.getConnection();
+                PreparedStatement prepStatement = connection.prepareStatement(SEARCH_BOOKS_QUERY)) {
+                prepStatement.setString(1, matchQuery);
+                // Fetching one extra row to know if there is a next page
+                prepStatement.setInt(2, limit + 1);
+                prepStatement.setInt(3, offset);
+
+                ResultSet resultSet = prepStatement.executeQuery();
+
+                ArrayList<Book> books = new ArrayList<>();
+                boolean hasNextPage = false;
+                while (resultSet.next()) {
+                    if (books.size() == limit) {
+                        hasNextPage = true;
+                        break;
+                    }
+
+                    Book book = new Book(
+                            resultSet.getInt("id"),
+                            resultSet.getString("title"),
+                            resultSet.getString("author"),
+                            resultSet.getInt("copies"),
+                            resultSet.getInt("available")
+                    );
+
+                    books.add(book);
+                }
+                Integer nextOffset = hasNextPage ? offset + limit : null;
+                return new Page<>(books, nextOffset);
+
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
 
-            ArrayList<Book> books = new ArrayList<>();
-            while (resultSet.next()) {
-                Book book = new Book(
-                        resultSet.getInt("id"),
-                        resultSet.getString("title"),
-                        resultSet.getString("author"),
-                        resultSet.getBoolean("availability")
-                );
+    /**
+     * Turns a search text into an FTS5 MATCH query.
+     * Every word of the text becomes a quoted prefix term, so the FTS5 query syntax (quotes, operators, column filters)
+     * typed by the user is searched as plain text instead of being interpreted.
+     *
+     * @param text the search text, as typed by the user
+     * @return the MATCH query requiring every term, or an empty string if the text contains no word
+     */
+    static String toMatchQuery(String text) {
+        if (text == null) {
+            return "";
+        }
 
-                books.add(book);
+        StringBuilder matchQuery = new StringBuilder();
+        for (String term : text.split("[\\s\"]+")) {
+            if (term.isEmpty()) {
+                continue;
             }
-            return books;
-
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
+            if (!matchQuery.isEmpty()) {
+                matchQuery.append(' ');
+            }
+            matchQuery.append('"').append(term).append("\"*");
         }
+        return matchQuery.toString();
     }
 
     /**
      * Finds a book by its unique id.
+     * The book is served from the book cache, and only read from the database on a cache miss.
      *
      * @param id the id of the book to be found
      * @return an Optional containing the found book, or an empty Optional if no such book exists
      */
     public Optional<Book> findBookById(int id) {
-        String query = """
-                    SELECT *
-                    FROM books
-                    WHERE id=?
-                    """;
+        return timers.record("findBookById", () -> {
+            Book cachedBook = bookCache().get(id, this::loadBookById);
+
+            // Handing out a copy, so callers cannot change the cached book
+            return Optional.ofNullable(cachedBook).map(book -> new Book(
+                    book.getId(),
+                    book.getTitle(),
+                    book.getAuthor(),
+                    book.getCopies(),
+                    book.getAvailable()
+            ));
+        });
+    }
 
-        try(Connection connection = DriverManager.getConnection(DB_URL);
-            PreparedStatement prepStatement = connection.prepareStatement(query)) {
+    /**
+     * Reads a book from the database by its unique id.
+     * Used to fill the book cache on a cache miss.
+     *
+     * @param id the id of the book to be read
+     * @return the book, or null if no such book exists
+     */
+    private Book loadBookById(int id) {
+        try(Connection connection = connection_pool_instance.getConnection();
+            PreparedStatement prepStatement = connection.prepareStatement(FIND_BOOK_BY_ID_QUERY)) {
             prepStatement.setInt(1, id);
 
             ResultSet resultSet = prepStatement.executeQuery();
@@ -304,10 +738,11 @@ public class BookRepository {
                         resultSet.getInt("id"),
                         resultSet.getString("title"),
                         resultSet.getString("author"),
-                        resultSet.getBoolean("availability")
+                        resultSet.getInt("copies"),
+                        resultSet.getInt("available")
                 );
             }
-            return Optional.ofNullable(book);
+            return book;
 
         } catch (SQLException e) {
             throw new RuntimeException(e);
@@ -316,14 +751,134 @@ public class BookRepository {
 
     /**
      * Checks if a book is available.
-     * A book is available if it exists and its availability is true.
+     * A book is available if it exists and one of its copies is not rented.
+     * The check is answered by the availability index, without querying the database.
      *
      * @param id the id of the book to be checked
      * @return true if the book is available, false otherwise
      */
     public boolean isAvailable(int id) {
-        Book book = findBookById(id).orElse(null);
-        return book != null && book.getAvailability();
+        return timers.record("isAvailable", () -> availabilityIndex().isAvailable(id));
+    }
+
+    /**
+     * Checks the availability of many books at once.
+     * The checks are answered by the availability index, without querying the database.
+     *
+     * @param ids the ids of the books to be checked
+     * @return the availability of every book indexed by id, in request order, false for books that don't exist
+     */
+    public LinkedHashMap<Integer, Boolean> getAvailability(List<Integer> ids) {
+        return timers.record("getAvailability", () -> {
+            AvailabilityIndex index = availabilityIndex();
+
+            LinkedHashMap<Integer, Boolean> availability = new LinkedHashMap<>();
+            for (int id : ids) {
+                availability.put(id, index.isAvailable(id));
+            }
+            return availability;
+        });
+    }
+
+    /**
+     * Records a change to the copies of a book, removing its stale copy from the book cache,
+     * updating the availability index and bumping the catalog version.
+     * Must be called after every committed change to the copies, including the ones made outside of this repository,
+     * such as the rentals and returns of RentalRepository.
+     *
+     * @param id the id of the book that changed
+     * @param availability the new availability of the book, true if one of its copies is not rented
+     */
+    void bookAvailabilityChanged(int id, boolean availability) {
+        bookCache().invalidate(id);
+        availabilityIndex().set(id, availability);
+        CatalogVersion.bump();
     }
 
+    /**
+     * Loads the availability index once the application is ready, so the first availability check doesn't pay for it.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadAvailabilityIndex() {
+        getInstance().availabilityIndex();
+    }
+
+    /**
+     * Returns a snapshot of the book cache size and hit/miss counters.
+     *
+     * @return the current metrics of the book cache
+     */
+    public CacheMetrics getBookCacheMetrics() {
+        CacheStats stats = bookCache().stats();
+        return new CacheMetrics(
+                bookCache().estimatedSize(),
+                BOOK_CACHE_MAX_ENTRIES,
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.evictionCount()
+        );
+    }
+
+    /**
+     * Drops the book cache and the availability index, which are built again from the database on next use.
+     * Needed when the ConnectionPool is pointed at another database file, where the same ids are other books.
+     */
+    synchronized void clearCaches() {
+        bookCache = null;
+        availabilityIndex = null;
+    }
+
+    /**
+     * Returns the availability index, loading it from the database on first use.
+     *
+     * @return the availability index
+     */
+    private AvailabilityIndex availabilityIndex() {
+        // The field is read once, so a concurrent clearCaches() can't turn the returned index into null
+        AvailabilityIndex index = availabilityIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = availabilityIndex;
+                if (index == null) {
+                    index = new AvailabilityIndex();
+
+                    try(Connection connection = connection_pool_instance.getConnection();
+                        PreparedStatement prepStatement = connection.prepareStatement(AVAILABLE_BOOK_IDS_QUERY);
+                        ResultSet resultSet = prepStatement.executeQuery()) {
+                        while (resultSet.next()) {
+                            index.set(resultSet.getInt(1), true);
+                        }
+                    } catch (SQLException e) {
+                        throw new RuntimeException(e);
+                    }
+                    availabilityIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns the book cache, creating it on first use.
+     *
+     * @return the book cache
+     */
+    private Cache<Integer, Book> bookCache() {
+        // The field is read once, so a concurrent clearCaches() can't turn the returned cache into null
+        Cache<Integer, Book> cache = bookCache;
+        if (cache == null) {
+            synchronized (this) {
+                cache = bookCache;
+                if (cache == null) {
+                    cache = Caffeine.newBuilder()
+                            .maximumSize(BOOK_CACHE_MAX_ENTRIES)
+                            .recordStats()
+                            .build();
+                    bookCache = cache;
+                }
+            }
+        }
+        return cache;
+    }
 }
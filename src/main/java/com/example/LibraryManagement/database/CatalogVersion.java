@@ -0,0 +1,39 @@
+package com.example.LibraryManagement.database;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CatalogVersion class is responsible for tracking changes to the catalog, the books and their rentals.
+ * The repositories bump the version after every committed change, so the listing endpoints can answer
+ * conditional requests from the version alone, without querying the database.
+ */
+public class CatalogVersion {
+    /**
+     * A random id of this run of the application.
+     * The version starts over at every restart, and the database may change while the application is down,
+     * so the ETags of different runs must never be equal.
+     */
+    private static final String BOOT_ID = UUID.randomUUID().toString().substring(0, 8);
+    /**
+     * The number of changes made to the catalog since the application started.
+     */
+    private static final AtomicLong version = new AtomicLong();
+
+    /**
+     * Records a committed change to the books or the rentals.
+     */
+    static void bump() {
+        version.incrementAndGet();
+    }
+
+    /**
+     * Returns the ETag of the current version of the catalog.
+     * It must be read before querying the database, so that a change made during the query gives a newer ETag.
+     *
+     * @return the strong ETag of the current version of the catalog
+     */
+    public static String etag() {
+        return "\"" + BOOT_ID + "-" + version.get() + "\"";
+    }
+}
@@ -0,0 +1,408 @@
+package com.example.LibraryManagement.database;
+
+import com.example.LibraryManagement.models.PoolMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.sqlite.SQLiteConfig;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ConnectionPool class is responsible for handing out long-lived read-only connections to the SQLite database.
+ * The writes go through the single read-write connection of the DatabaseWriter instead,
+ * so with WAL journaling the pooled readers never wait for a write and can run on every core.
+ * Connections are opened lazily up to the configured pool size and are given back to the pool when they are closed.
+ * Every connection keeps its prepared statements in a StatementCache, so the fixed queries of the repositories
+ * are only parsed and planned once per connection.
+ * It also keeps track of how long callers had to wait for a connection.
+ */
+@Component
+public class ConnectionPool {
+    /**
+     * The URL of the SQLite database to connect to.
+     */
+    private static String DB_URL;
+    /**
+     * The maximum number of connections kept open by the pool.
+     */
+    private static int POOL_SIZE;
+    /**
+     * The maximum time in milliseconds a caller waits for a free connection.
+     */
+    private static long TIMEOUT_MS;
+    /**
+     * The maximum number of prepared statements kept open per connection, 0 to disable the statement caches.
+     */
+    private static int STATEMENT_CACHE_SIZE;
+    /**
+     * The singleton instance of ConnectionPool.
+     */
+    private static ConnectionPool connection_pool_instance = null;
+
+    /**
+     * The open connections that are currently not in use.
+     */
+    private final BlockingQueue<Connection> idleConnections = new LinkedBlockingQueue<>();
+    /**
+     * The number of connections currently opened by the pool, both idle and in use.
+     */
+    private final AtomicInteger openConnections = new AtomicInteger();
+    /**
+     * The statement caches of the open connections, both pooled and unpooled.
+     */
+    private final ConcurrentHashMap<Connection, StatementCache> statementCaches = new ConcurrentHashMap<>();
+    /**
+     * The number of connections handed out by the pool.
+     */
+    private final LongAdder acquisitions = new LongAdder();
+    /**
+     * The number of callers that gave up waiting for a connection.
+     */
+    private final LongAdder timeouts = new LongAdder();
+    /**
+     * The total time in nanoseconds callers spent waiting for a connection.
+     */
+    private final LongAdder totalWaitNanos = new LongAdder();
+    /**
+     * The longest time in nanoseconds a caller spent waiting for a connection.
+     */
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    /**
+     * Constructor for ConnectionPool class.
+     *
+     * @param dbUrl the URL of the SQLite database to connect to. This value is obtained from the application.properties file.
+     * @param poolSize the maximum number of open connections. This value is obtained from the application.properties file.
+     * @param timeoutMs the maximum time in milliseconds to wait for a free connection. This value is obtained from the application.properties file.
+     * @param statementCacheSize the maximum number of prepared statements kept open per connection. This value is obtained from the application.properties file.
+     */
+    public ConnectionPool(@Value("${db.url}") String dbUrl,
+                          @Value("${db.pool.size}") int poolSize,
+                          @Value("${db.pool.timeout-ms}") long timeoutMs,
+                          @Value("${db.pool.statement-cache-size}") int statementCacheSize) {
+        // Initializing the pool configuration from application.properties
+        DB_URL = dbUrl;
+        POOL_SIZE = poolSize;
+        TIMEOUT_MS = timeoutMs;
+        STATEMENT_CACHE_SIZE = statementCacheSize;
+    }
+
+    /**
+     * Returns the singleton instance of ConnectionPool.
+     * Initializes the instance if it hasn't been created yet.
+     *
+     * @return the singleton instance of ConnectionPool
+     */
+    public static ConnectionPool getInstance()
+    {
+        if (connection_pool_instance == null)
+            connection_pool_instance = new ConnectionPool(DB_URL, POOL_SIZE, TIMEOUT_MS, STATEMENT_CACHE_SIZE);
+
+        return connection_pool_instance;
+    }
+
+    /**
+     * Borrows a read-only connection from the pool.
+     * An idle connection is reused if there is one, a new connection is opened if the pool is not full,
+     * otherwise the caller waits until a connection is given back.
+     * Closing the returned connection gives it back to the pool instead of closing it.
+     *
+     * @return a pooled read-only connection to the database
+     * @throws SQLException if a new connection could not be opened or no connection became free in time
+     */
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+
+        Connection connection = idleConnections.poll();
+        if (connection == null) {
+            if (reserveConnection()) {
+                connection = openConnection();
+            } else {
+                try {
+                    connection = idleConnections.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while waiting for a database connection", e);
+                }
+                if (connection == null) {
+                    timeouts.increment();
+                    throw new SQLException("Timed out after " + TIMEOUT_MS + " ms waiting for a database connection");
+                }
+            }
+        }
+
+        recordWait(System.nanoTime() - start);
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new ConnectionHandler(connection, true));
+    }
+
+    /**
+     * Returns a snapshot of the pool usage and wait-time metrics.
+     *
+     * @return the current metrics of the pool
+     */
+    public PoolMetrics getMetrics() {
+        long count = acquisitions.sum();
+        double averageWaitMillis = count == 0 ? 0 : totalWaitNanos.sum() / (double) count / 1_000_000;
+
+        return new PoolMetrics(
+                POOL_SIZE,
+                openConnections.get(),
+                idleConnections.size(),
+                count,
+                timeouts.sum(),
+                averageWaitMillis,
+                maxWaitNanos.get() / 1_000_000.0
+        );
+    }
+
+    /**
+     * Closes all idle connections of the singleton pool when the application shuts down.
+     * Connections are opened again lazily if the pool is used afterwards.
+     */
+    @PreDestroy
+    public void shutdown() {
+        getInstance().close();
+    }
+
+    /**
+     * Closes all connections that are currently idle.
+     * Connections that are in use are closed when they are given back.
+     */
+    public void close() {
+        Connection connection;
+        while ((connection = idleConnections.poll()) != null) {
+            discard(connection);
+        }
+    }
+
+    /**
+     * Reserves a slot for a new connection if the pool is not full yet.
+     *
+     * @return true if a slot was reserved, false if the pool is full
+     */
+    private boolean reserveConnection() {
+        int open;
+        do {
+            open = openConnections.get();
+            if (open >= POOL_SIZE) {
+                return false;
+            }
+        } while (!openConnections.compareAndSet(open, open + 1));
+        return true;
+    }
+
+    /**
+     * Opens a new read-only connection for the pool.
+     *
+     * @return a new read-only connection to the database
+     * @throws SQLException if the connection could not be opened
+     */
+    private Connection openConnection() throws SQLException {
+        try {
+            return openConnection(true);
+        } catch (SQLException e) {
+            openConnections.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a new read-write connection to the database that is not managed by the pool, such as the one of the DatabaseWriter.
+     *
+     * Like the pooled connections, it reuses its prepared statements.
+     *
+     * @return a new read-write connection to the database, to be closed by the caller
+     * @throws SQLException if the connection could not be opened
+     */
+    Connection openUnpooledConnection() throws SQLException {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new ConnectionHandler(openConnection(false), false));
+    }
+
+    /**
+     * Opens a new connection to the database that is not managed by the pool and doesn't cache its statements,
+     * such as the source connection of a DatabaseBackup, which needs the underlying SQLite connection.
+     *
+     * @param readOnly whether the connection is refused any write
+     * @return a new connection to the database, to be closed by the caller
+     * @throws SQLException if the connection could not be opened
+     */
+    Connection openRawConnection(boolean readOnly) throws SQLException {
+        SQLiteConfig config = new SQLiteConfig();
+        config.enforceForeignKeys(true);
+        config.setBusyTimeout((int) TIMEOUT_MS);
+        config.setReadOnly(readOnly);
+
+        return DriverManager.getConnection(DB_URL, config.toProperties());
+    }
+
+    /**
+     * Opens a new connection to the database, with its statement cache.
+     * Every connection enforces foreign keys and waits for locks instead of failing immediately.
+     *
+     * @param readOnly whether the connection is refused any write
+     * @return a new connection to the database
+     * @throws SQLException if the connection could not be opened
+     */
+    private Connection openConnection(boolean readOnly) throws SQLException {
+        Connection connection = openRawConnection(readOnly);
+        if (STATEMENT_CACHE_SIZE > 0) {
+            statementCaches.put(connection, new StatementCache(connection, STATEMENT_CACHE_SIZE));
+        }
+        return connection;
+    }
+
+    /**
+     * Gives a connection back to the pool.
+     * Any unfinished transaction is rolled back so the next caller starts from a clean state.
+     * Broken connections are discarded.
+     *
+     * @param connection the connection to give back
+     */
+    private void release(Connection connection) {
+        try {
+            if (connection.isClosed()) {
+                statementCaches.remove(connection);
+                openConnections.decrementAndGet();
+                return;
+            }
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            idleConnections.offer(connection);
+        } catch (SQLException e) {
+            discard(connection);
+        }
+    }
+
+    /**
+     * Closes a connection and frees its slot in the pool.
+     *
+     * @param connection the connection to close
+     */
+    private void discard(Connection connection) {
+        openConnections.decrementAndGet();
+        try {
+            closeConnection(connection);
+        } catch (SQLException e) {
+            System.err.println("Error closing database connection: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Closes a connection and its cached statements.
+     *
+     * @param connection the connection to close
+     * @throws SQLException if the connection could not be closed
+     */
+    private void closeConnection(Connection connection) throws SQLException {
+        StatementCache statementCache = statementCaches.remove(connection);
+        if (statementCache != null) {
+            statementCache.close();
+        }
+        connection.close();
+    }
+
+    /**
+     * Records the time a caller waited for a connection.
+     *
+     * @param waitNanos the wait time in nanoseconds
+     */
+    private void recordWait(long waitNanos) {
+        acquisitions.increment();
+        totalWaitNanos.add(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    /**
+     * Wraps a connection so that closing it gives it back to the pool, or closes it with its cached statements if it is unpooled.
+     * Statements prepared without options go through the statement cache of the connection.
+     * All other calls are passed on to the underlying connection.
+     */
+    private final class ConnectionHandler implements InvocationHandler {
+        /**
+         * The underlying connection to the database.
+         */
+        private final Connection connection;
+        /**
+         * The statement cache of the underlying connection, or null if the statement caches are disabled.
+         */
+        private final StatementCache statementCache;
+        /**
+         * Whether the connection belongs to the pool.
+         */
+        private final boolean pooled;
+        /**
+         * Whether the connection has already been given back to the pool or closed.
+         */
+        private boolean released = false;
+
+        /**
+         * Constructor for ConnectionHandler class.
+         *
+         * @param connection the underlying connection to the database
+         * @param pooled whether the connection belongs to the pool
+         */
+        private ConnectionHandler(Connection connection, boolean pooled) {
+            this.connection = connection;
+            this.statementCache = statementCaches.get(connection);
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!released) {
+                        released = true;
+                        if (pooled)
+                            release(connection);
+                        else
+                            closeConnection(connection);
+                    }
+                    return null;
+                case "isClosed":
+                    return released || connection.isClosed();
+                case "prepareStatement":
+                    if (released)
+                        throw new SQLException("Connection has already been returned to the pool");
+                    if (statementCache != null && args.length == 1)
+                        return statementCache.prepareStatement((String) args[0]);
+                    break;
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(connection))
+                        return connection;
+                    break;
+                default:
+                    if (released)
+                        throw new SQLException("Connection has already been returned to the pool");
+            }
+
+            try {
+                return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
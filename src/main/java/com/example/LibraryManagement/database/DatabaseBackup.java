@@ -0,0 +1,330 @@
+package com.example.LibraryManagement.database;
+
+import com.example.LibraryManagement.models.BackupStatus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.sqlite.SQLiteConnection;
+import org.sqlite.core.Codes;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * DatabaseBackup class is responsible for copying the SQLite database to backup files while the application runs.
+ * It uses the online backup API of SQLite, which copies the database a few pages at a time,
+ * from a read transaction held open for the whole backup. With WAL journaling that transaction sees one consistent
+ * state of the database and never blocks the DatabaseWriter, whose commits go to the log meanwhile.
+ * Between the steps the backup pauses, and pauses longer while writes are waiting, so it yields the disk to them.
+ * Only one backup runs at a time, either started by an admin or by the schedule set in application.properties.
+ */
+@Component
+public class DatabaseBackup {
+    /**
+     * The name of the backup duration metric.
+     */
+    private static final String METRIC_NAME = "library.backup";
+    /**
+     * The number of times a step may find the database locked before the backup fails.
+     */
+    private static final int BUSY_RETRIES = 50;
+    /**
+     * The format of the time in the names of the backup files, which sorts them by age.
+     */
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    /**
+     * The directory the backup files are written to.
+     */
+    private static String BACKUP_DIR;
+    /**
+     * The number of pages copied by every step of the backup.
+     */
+    private static int PAGES_PER_STEP;
+    /**
+     * The pause between two steps in milliseconds, when no write is waiting.
+     */
+    private static int STEP_PAUSE_MS;
+    /**
+     * The pause between two steps in milliseconds, while writes are waiting for the DatabaseWriter.
+     */
+    private static int BUSY_PAUSE_MS;
+    /**
+     * The number of backup files kept, the oldest ones being deleted after every backup.
+     */
+    private static int KEEP;
+    /**
+     * The singleton instance of DatabaseBackup.
+     */
+    private static DatabaseBackup database_backup_instance = null;
+
+    /**
+     * Whether a backup is running.
+     */
+    private final AtomicBoolean running = new AtomicBoolean();
+    /**
+     * The number of pages of the database being backed up, 0 before the first step.
+     */
+    private volatile int pageCount;
+    /**
+     * The number of pages left to copy.
+     */
+    private volatile int remainingPages;
+    /**
+     * The path of the last backup file written successfully, or null if there is none.
+     */
+    private volatile String lastBackupFile;
+    /**
+     * The time in milliseconds the last finished backup took.
+     */
+    private volatile long lastDurationMillis;
+    /**
+     * The error of the last finished backup, or null if it succeeded.
+     */
+    private volatile String lastError;
+
+    /**
+     * Constructor for DatabaseBackup class.
+     *
+     * @param backupDir the directory the backup files are written to. This value is obtained from the application.properties file.
+     * @param pagesPerStep the number of pages copied by every step of the backup. This value is obtained from the application.properties file.
+     * @param stepPauseMs the pause between two steps in milliseconds, when no write is waiting. This value is obtained from the application.properties file.
+     * @param busyPauseMs the pause between two steps in milliseconds, while writes are waiting. This value is obtained from the application.properties file.
+     * @param keep the number of backup files kept. This value is obtained from the application.properties file.
+     */
+    public DatabaseBackup(@Value("${db.backup.dir}") String backupDir,
+                          @Value("${db.backup.pages-per-step}") int pagesPerStep,
+                          @Value("${db.backup.step-pause-ms}") int stepPauseMs,
+                          @Value("${db.backup.busy-pause-ms}") int busyPauseMs,
+                          @Value("${db.backup.keep}") int keep) {
+        // Initializing the backup configuration from application.properties
+        BACKUP_DIR = backupDir;
+        PAGES_PER_STEP = pagesPerStep;
+        STEP_PAUSE_MS = stepPauseMs;
+        BUSY_PAUSE_MS = busyPauseMs;
+        KEEP = keep;
+    }
+
+    /**
+     * Returns the singleton instance of DatabaseBackup.
+     * Initializes the instance if it hasn't been created yet, and registers its progress gauge.
+     *
+     * @return the singleton instance of DatabaseBackup
+     */
+    public static DatabaseBackup getInstance()
+    {
+        if (database_backup_instance == null) {
+            database_backup_instance = new DatabaseBackup(BACKUP_DIR, PAGES_PER_STEP, STEP_PAUSE_MS, BUSY_PAUSE_MS, KEEP);
+
+            Gauge.builder(METRIC_NAME + ".progress", database_backup_instance, DatabaseBackup::progress)
+                    .description("Fraction of the pages of the database copied by the running or last backup")
+                    .register(Metrics.globalRegistry);
+        }
+
+        return database_backup_instance;
+    }
+
+    /**
+     * Starts the scheduled backups, on the schedule set in application.properties.
+     */
+    @Scheduled(cron = "${db.backup.cron}")
+    public void scheduledBackup() {
+        if (!getInstance().startBackup()) {
+            System.out.println("Skipped the scheduled database backup, a backup is already running");
+        }
+    }
+
+    /**
+     * Starts a backup on a background thread, unless one is already running.
+     *
+     * @return true if the backup was started; false if a backup is already running
+     */
+    public boolean startBackup() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+
+        Thread thread = new Thread(() -> {
+            try {
+                runBackup();
+            } catch (RuntimeException e) {
+                System.err.println("Database backup failed: " + e.getMessage());
+            }
+        }, "database-backup");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    /**
+     * Backs up the database on the calling thread, unless a backup is already running.
+     *
+     * @return the path of the backup file
+     * @throws IllegalStateException if a backup is already running
+     * @throws RuntimeException if the backup fails, wrapping any SQLException or IOException
+     */
+    public Path backup() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A backup is already running");
+        }
+        return runBackup();
+    }
+
+    /**
+     * Returns the progress of the running or last backup and the outcome of the last finished one.
+     *
+     * @return the current status of the backups
+     */
+    public BackupStatus getStatus() {
+        return new BackupStatus(running.get(), pageCount, remainingPages, lastBackupFile, lastDurationMillis, lastError);
+    }
+
+    /**
+     * Backs up the database and records the outcome, once the running flag has been taken by the caller.
+     * The flag is given back when the backup is over.
+     *
+     * @return the path of the backup file
+     */
+    private Path runBackup() {
+        pageCount = 0;
+        remainingPages = 0;
+
+        long start = System.nanoTime();
+        String result = "failure";
+        try {
+            Path file = copy();
+            result = "success";
+            lastBackupFile = file.toString();
+            lastError = null;
+            System.out.println("Backed up the database to " + file);
+            return file;
+        } catch (RuntimeException e) {
+            lastError = e.getMessage();
+            throw e;
+        } finally {
+            long duration = System.nanoTime() - start;
+            lastDurationMillis = duration / 1_000_000;
+            Timer.builder(METRIC_NAME)
+                    .description("Time spent backing up the database")
+                    .tag("result", result)
+                    .register(Metrics.globalRegistry)
+                    .record(duration, TimeUnit.NANOSECONDS);
+            running.set(false);
+        }
+    }
+
+    /**
+     * Copies the database to a new backup file and deletes the oldest backup files beyond the number kept.
+     * The copy is written to a ".part" file first and renamed once complete,
+     * so a backup file is never left half written.
+     *
+     * @return the path of the backup file
+     */
+    private Path copy() {
+        Path directory = Path.of(BACKUP_DIR);
+        String name = "library-" + LocalDateTime.now().format(FILE_TIMESTAMP);
+        Path partFile = directory.resolve(name + ".sqlite.part");
+        Path file = directory.resolve(name + ".sqlite");
+
+        try {
+            Files.createDirectories(directory);
+            try (Connection connection = ConnectionPool.getInstance().openRawConnection(true)) {
+                // Reading once inside a transaction pins the state of the database the whole backup copies,
+                // so the writes committed meanwhile neither restart the backup nor wait for it
+                connection.setAutoCommit(false);
+                try (Statement statement = connection.createStatement();
+                     ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM sqlite_schema")) {
+                    resultSet.next();
+                }
+
+                int resultCode = connection.unwrap(SQLiteConnection.class).getDatabase()
+                        .backup("main", partFile.toString(), this::pause, BUSY_PAUSE_MS, BUSY_RETRIES, PAGES_PER_STEP);
+                if (resultCode != Codes.SQLITE_OK && resultCode != Codes.SQLITE_DONE) {
+                    throw new SQLException("The backup stopped with SQLite result code " + resultCode);
+                }
+            }
+            Files.move(partFile, file, StandardCopyOption.ATOMIC_MOVE);
+            deleteOldBackups(directory);
+            return file;
+        } catch (SQLException | IOException e) {
+            try {
+                Files.deleteIfExists(partFile);
+            } catch (IOException ignored) {
+                // The error of the backup itself is the one reported
+            }
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Records the progress of the backup after every step, and pauses before the next step.
+     * It is called by SQLite on the backup thread.
+     *
+     * @param remaining the number of pages left to copy
+     * @param pages the number of pages of the database
+     */
+    private void pause(int remaining, int pages) {
+        pageCount = pages;
+        remainingPages = remaining;
+        if (remaining == 0) {
+            return;
+        }
+
+        int pauseMs = DatabaseWriter.getInstance().getQueueLength() > 0 ? BUSY_PAUSE_MS : STEP_PAUSE_MS;
+        if (pauseMs > 0) {
+            try {
+                Thread.sleep(pauseMs);
+            } catch (InterruptedException e) {
+                // The backup goes on without pausing, and the interruption is left for the caller
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Deletes the oldest backup files beyond the number kept.
+     *
+     * @param directory the directory of the backup files
+     * @throws IOException if the directory could not be listed or a file could not be deleted
+     */
+    private static void deleteOldBackups(Path directory) throws IOException {
+        List<Path> backups;
+        try (Stream<Path> files = Files.list(directory)) {
+            // The names start with the time of the backup, so they sort from the oldest to the newest
+            backups = files.filter(path -> {
+                        String fileName = path.getFileName().toString();
+                        return fileName.startsWith("library-") && fileName.endsWith(".sqlite");
+                    })
+                    .sorted()
+                    .toList();
+        }
+        for (int i = 0; i < backups.size() - KEEP; i++) {
+            Files.delete(backups.get(i));
+        }
+    }
+
+    /**
+     * Returns the fraction of the pages of the database copied by the running or last backup.
+     *
+     * @return the progress of the backup, from 0 to 1
+     */
+    private double progress() {
+        int pages = pageCount;
+        return pages == 0 ? 0 : (double) (pages - remainingPages) / pages;
+    }
+}
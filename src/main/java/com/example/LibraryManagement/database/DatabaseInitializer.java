@@ -5,12 +5,16 @@ import org.springframework.stereotype.Component;
 
 import java.sql.DriverManager;
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * DatabaseInitializer class is responsible for initializing the SQLite database and creating the necessary tables.
- * It connects to the database and creates the tables if they don't already exist.
+ * It connects to the database and creates the tables and indexes if they don't already exist.
  * It is automatically initialized when the application starts because of the @Component annotation.
  */
 @Component
@@ -20,31 +24,84 @@ public class DatabaseInitializer {
      */
     private static String DB_URL;
 
+    /**
+     * The indexes created for the access paths of the repositories, indexed by name.
+     * The primary keys and the unique constraints already cover the lookups by id, by username,
+     * by title and by (user_id, book_id), so only the remaining access paths are listed here.
+     */
+    private static final Map<String, String> INDEXES = new LinkedHashMap<>();
+
+    static {
+        // BookRepository.findBooksByAuthor, the (title, author) unique index cannot serve author-only lookups
+        INDEXES.put("idx_books_author", "CREATE INDEX IF NOT EXISTS idx_books_author ON books(author)");
+        // Deleting a book cascades to its rentals, which are looked up by book_id, like in RentalRepository.findRentalsByBookId.
+        // RentalRepository.findRentalsByUserId needs no index of its own, user_id leads the (user_id, book_id) primary key
+        INDEXES.put("idx_rentals_book_id", "CREATE INDEX IF NOT EXISTS idx_rentals_book_id ON rentals(book_id)");
+    }
+
     /**
      * Constructor for DatabaseInitializer class.
-     * Initializes the database connection and creates the necessary tables.
+     * Initializes the database connection, switches the database to WAL journaling, creates the necessary tables and indexes
+     * and checks that the hot repository queries use an index.
      *
      * @param dbUrl the URL of the SQLite database to connect to. This value is obtained from the application.properties file.
+     * @param queryPlanCheck what to do when a hot query falls back to a full scan: "fail", "warn" or "off". This value is obtained from the application.properties file.
      */
-    public DatabaseInitializer(@Value("${db.url}") String dbUrl) {
+    public DatabaseInitializer(@Value("${db.url}") String dbUrl,
+                               @Value("${db.query-plan-check}") String queryPlanCheck) {
         DB_URL = dbUrl;
         // Connecting to the Database or automatically creating it if it doesn't exist
         try (Connection connection = DriverManager.getConnection(DB_URL)) {
             System.out.println("Connected to SQLite database");
 
+            // Letting the reads run while the DatabaseWriter writes
+            enableWriteAheadLog(connection);
+
             // Creating tables if they don't exist
             createBooksTable(connection);
+            migrateBooksToCopyCounts(connection);
             createUsersTable(connection);
             createRentalsTable(connection);
+
+            // Creating indexes if they don't exist
+            createIndexes(connection);
+            createBooksSearchIndex(connection);
+
+            // Checking the query plans of the hot queries
+            verifyQueryPlans(connection, queryPlanCheck);
         } catch (SQLException e) {
             System.err.println("Error initializing database: " + e.getMessage());
         }
     }
 
+    /**
+     * Switches the database to write-ahead log (WAL) journaling if it isn't already.
+     * With WAL, the readers keep reading the last committed state while a write is in progress,
+     * instead of waiting for the write to finish. The journal mode is stored in the database file,
+     * so every connection opened afterwards uses it.
+     *
+     * @param connection the database connection used to switch the journal mode.
+     */
+    private void enableWriteAheadLog(Connection connection){
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("PRAGMA journal_mode=WAL")) {
+            // In-memory databases can't use WAL and keep their journal mode
+            String journalMode = resultSet.next() ? resultSet.getString(1) : "unknown";
+            if (journalMode.equalsIgnoreCase("wal")) {
+                System.out.println("Checked/Enabled WAL journal mode");
+            } else {
+                System.err.println("Warning: database uses the '" + journalMode + "' journal mode instead of WAL");
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     /**
      * Creates the 'books' table in the database if it doesn't already exist.
-     * The table includes columns for book ID, title, author, and availability.
-     * Ensures that each combination of title and author is unique.
+     * The table includes columns for book ID, title, author, the number of copies and the number of copies not rented.
+     * Ensures that each combination of title and author is unique, and that the number of available copies
+     * never drops below zero or exceeds the number of copies.
      *
      * @param connection the database connection used to create the table.
      */
@@ -54,7 +111,8 @@ public class DatabaseInitializer {
                 id INTEGER PRIMARY KEY AUTOINCREMENT,
                 title TEXT NOT NULL,
                 author TEXT NOT NULL,
-                availability BOOLEAN DEFAULT 1,
+                copies INTEGER NOT NULL DEFAULT 1 CHECK (copies >= 0),
+                available INTEGER NOT NULL DEFAULT 1 CHECK (available >= 0 AND available <= copies),
                 UNIQUE (title, author) ON CONFLICT IGNORE
             );
             """;
@@ -67,6 +125,46 @@ public class DatabaseInitializer {
         }
     }
 
+    /**
+     * Migrates a 'books' table created with the former 'availability' flag to the 'copies' and 'available' counters.
+     * Every existing book becomes a single copy, available unless it was rented, and the flag is dropped.
+     * The migration runs in a single transaction, so a failure leaves the table untouched.
+     *
+     * @param connection the database connection used to migrate the table.
+     */
+    private void migrateBooksToCopyCounts(Connection connection){
+        try (Statement statement = connection.createStatement()) {
+            boolean hasAvailabilityFlag = false;
+            try (ResultSet columns = statement.executeQuery("PRAGMA table_info(books)")) {
+                while (columns.next()) {
+                    if (columns.getString("name").equals("availability")) {
+                        hasAvailabilityFlag = true;
+                    }
+                }
+            }
+            if (!hasAvailabilityFlag) {
+                return;
+            }
+
+            connection.setAutoCommit(false);
+            try {
+                statement.execute("ALTER TABLE books ADD COLUMN copies INTEGER NOT NULL DEFAULT 1 CHECK (copies >= 0)");
+                statement.execute("ALTER TABLE books ADD COLUMN available INTEGER NOT NULL DEFAULT 1 CHECK (available >= 0 AND available <= copies)");
+                statement.execute("UPDATE books SET available = CASE WHEN availability = 0 THEN 0 ELSE 1 END");
+                statement.execute("ALTER TABLE books DROP COLUMN availability");
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+            System.out.println("Migrated 'books' table to copy counts");
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     /**
      * Creates the 'users' table in the database if it doesn't already exist.
      * The table includes columns for user ID, username, password hash, and admin status.
@@ -119,4 +217,106 @@ public class DatabaseInitializer {
             throw new RuntimeException(e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Creates the indexes for the access paths of the repositories if they don't already exist.
+     *
+     * @param connection the database connection used to create the indexes.
+     */
+    private void createIndexes(Connection connection){
+        try (Statement statement = connection.createStatement()) {
+            for (Map.Entry<String, String> index : INDEXES.entrySet()) {
+                statement.execute(index.getValue());
+                System.out.println("Checked/Created '" + index.getKey() + "' index");
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Creates the 'books_fts' full-text index over the title and author of the books if it doesn't already exist.
+     * It is an FTS5 external content table, so the text is only stored once in the 'books' table,
+     * and it is kept in sync by triggers on every insert, delete and title/author update of a book.
+     * Prefix indexes of 2 and 3 characters keep the prefix searches of short terms fast.
+     * When the index is created over an existing catalog, it is filled with the books already stored.
+     *
+     * @param connection the database connection used to create the index.
+     */
+    private void createBooksSearchIndex(Connection connection){
+        String createQuery = """
+            CREATE VIRTUAL TABLE books_fts USING fts5(
+                title,
+                author,
+                content='books',
+                content_rowid='id',
+                tokenize='unicode61 remove_diacritics 2',
+                prefix='2 3'
+            );
+            """;
+        String[] triggerQueries = {
+            """
+            CREATE TRIGGER IF NOT EXISTS books_fts_insert AFTER INSERT ON books BEGIN
+                INSERT INTO books_fts (rowid, title, author) VALUES (new.id, new.title, new.author);
+            END;
+            """,
+            """
+            CREATE TRIGGER IF NOT EXISTS books_fts_delete AFTER DELETE ON books BEGIN
+                INSERT INTO books_fts (books_fts, rowid, title, author) VALUES ('delete', old.id, old.title, old.author);
+            END;
+            """,
+            // Rentals and returns don't touch the indexed columns, so they don't fire this trigger
+            """
+            CREATE TRIGGER IF NOT EXISTS books_fts_update AFTER UPDATE OF title, author ON books BEGIN
+                INSERT INTO books_fts (books_fts, rowid, title, author) VALUES ('delete', old.id, old.title, old.author);
+                INSERT INTO books_fts (rowid, title, author) VALUES (new.id, new.title, new.author);
+            END;
+            """
+        };
+
+        try (Statement statement = connection.createStatement()) {
+            boolean exists;
+            try (ResultSet resultSet = statement.executeQuery(
+                    "SELECT 1 FROM sqlite_master WHERE type='table' AND name='books_fts'")) {
+                exists = resultSet.next();
+            }
+
+            if (!exists) {
+                statement.execute(createQuery);
+                // Indexing the books stored before the index existed
+                statement.execute("INSERT INTO books_fts (books_fts) VALUES ('rebuild')");
+            }
+            for (String triggerQuery : triggerQueries) {
+                statement.execute(triggerQuery);
+            }
+            System.out.println("Checked/Created 'books_fts' full-text index");
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Runs EXPLAIN QUERY PLAN on the hot repository queries and reports the ones that fall back to a full scan.
+     * Depending on the configuration, the application either fails to start, prints a warning or skips the check.
+     *
+     * @param connection the database connection used to plan the queries.
+     * @param queryPlanCheck what to do when a hot query falls back to a full scan: "fail", "warn" or "off".
+     */
+    private void verifyQueryPlans(Connection connection, String queryPlanCheck){
+        if (queryPlanCheck.equalsIgnoreCase("off")) {
+            return;
+        }
+
+        ArrayList<String> fullScans = QueryPlanVerifier.findFullTableScans(connection);
+        if (fullScans.isEmpty()) {
+            System.out.println("Checked query plans, all hot queries use an index");
+            return;
+        }
+
+        String report = "Hot queries falling back to a full scan:\n  " + String.join("\n  ", fullScans);
+        if (queryPlanCheck.equalsIgnoreCase("fail")) {
+            throw new IllegalStateException(report);
+        }
+        System.err.println(report);
+    }
+}
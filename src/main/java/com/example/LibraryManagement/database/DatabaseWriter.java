@@ -0,0 +1,250 @@
+package com.example.LibraryManagement.database;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DatabaseWriter class is responsible for running every write to the SQLite database on a single thread.
+ * SQLite allows only one writer at a time, so instead of letting concurrent requests fight over the database lock,
+ * the writes wait in a bounded queue and run one after the other on a dedicated connection.
+ * When the queue is full, new writes are rejected right away with a RejectedExecutionException.
+ */
+@Component
+public class DatabaseWriter {
+    /**
+     * The maximum number of writes waiting for the writer thread.
+     */
+    private static int QUEUE_CAPACITY;
+    /**
+     * The singleton instance of DatabaseWriter.
+     */
+    private static DatabaseWriter database_writer_instance = null;
+
+    /**
+     * The single thread running the writes, and its queue of waiting writes.
+     * It is created on first use, once the configuration has been read from application.properties.
+     */
+    private volatile ThreadPoolExecutor executor;
+    /**
+     * The dedicated connection of the writer thread.
+     * It is only used by the writer thread, and opened on the first write.
+     */
+    private Connection connection;
+
+    /**
+     * A write to run on the writer thread.
+     *
+     * @param <T> the type of the result of the write
+     */
+    @FunctionalInterface
+    public interface WriteTask<T> {
+        /**
+         * Runs the write.
+         * Any transaction left unfinished by the write is rolled back afterwards.
+         *
+         * @param connection the dedicated connection of the writer, which must not be closed by the write
+         * @return the result of the write
+         * @throws SQLException if the write fails
+         */
+        T run(Connection connection) throws SQLException;
+    }
+
+    /**
+     * Constructor for DatabaseWriter class.
+     *
+     * @param queueCapacity the maximum number of writes waiting for the writer thread. This value is obtained from the application.properties file.
+     */
+    public DatabaseWriter(@Value("${db.writer.queue-capacity}") int queueCapacity) {
+        // Initializing the queue configuration from application.properties
+        QUEUE_CAPACITY = queueCapacity;
+    }
+
+    /**
+     * Returns the singleton instance of DatabaseWriter.
+     * Initializes the instance if it hasn't been created yet.
+     *
+     * @return the singleton instance of DatabaseWriter
+     */
+    public static DatabaseWriter getInstance()
+    {
+        if (database_writer_instance == null)
+            database_writer_instance = new DatabaseWriter(QUEUE_CAPACITY);
+
+        return database_writer_instance;
+    }
+
+    /**
+     * Queues a write for the writer thread.
+     *
+     * @param task the write to run
+     * @return a future completed with the result of the write, or with the exception it threw
+     * @param <T> the type of the result of the write
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public <T> CompletableFuture<T> submit(WriteTask<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+
+        executor().execute(() -> {
+            try {
+                future.complete(task.run(connection()));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            } finally {
+                endTransaction();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Queues a write for the writer thread and waits for its result.
+     *
+     * @param task the write to run
+     * @return the result of the write
+     * @param <T> the type of the result of the write
+     * @throws RejectedExecutionException if the queue is full
+     * @throws RuntimeException if the write fails, wrapping any SQLException
+     */
+    public <T> T execute(WriteTask<T> task) {
+        try {
+            return submit(task).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * Returns the number of writes waiting for the writer thread.
+     *
+     * @return the length of the write queue
+     */
+    public int getQueueLength() {
+        ThreadPoolExecutor current = executor;
+        return current == null ? 0 : current.getQueue().size();
+    }
+
+    /**
+     * Stops the writer of the singleton instance when the application shuts down.
+     * The writes already queued are run before the dedicated connection is closed.
+     */
+    @PreDestroy
+    public void shutdown() {
+        getInstance().close();
+    }
+
+    /**
+     * Runs the writes already queued and closes the dedicated connection.
+     * The writer is started again if it is used afterwards, with a new connection.
+     */
+    public synchronized void close() {
+        ThreadPoolExecutor stopped = executor;
+        if (stopped == null) {
+            return;
+        }
+        executor = null;
+
+        stopped.shutdown();
+        try {
+            if (!stopped.awaitTermination(30, TimeUnit.SECONDS)) {
+                System.err.println("Database writer did not finish the queued writes in time");
+                stopped.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            stopped.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        // The writer thread has stopped, so its connection can be closed from here
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                System.err.println("Error closing database connection: " + e.getMessage());
+            }
+            connection = null;
+        }
+    }
+
+    /**
+     * Returns the dedicated connection of the writer, opening it on first use.
+     * Must only be called on the writer thread.
+     *
+     * @return the dedicated connection of the writer
+     * @throws SQLException if the connection could not be opened
+     */
+    private Connection connection() throws SQLException {
+        if (connection == null || connection.isClosed()) {
+            connection = ConnectionPool.getInstance().openUnpooledConnection();
+        }
+        return connection;
+    }
+
+    /**
+     * Rolls back any transaction left unfinished by a write, so the next write starts from a clean state.
+     * Must only be called on the writer thread.
+     */
+    private void endTransaction() {
+        try {
+            if (connection != null && !connection.isClosed() && !connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error resetting database connection, reopening it: " + e.getMessage());
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+                // The connection is replaced anyway
+            }
+            connection = null;
+        }
+    }
+
+    /**
+     * Returns the writer thread and its queue, creating them on first use.
+     *
+     * @return the executor of the writer thread
+     */
+    private ThreadPoolExecutor executor() {
+        ThreadPoolExecutor current = executor;
+        if (current == null) {
+            synchronized (this) {
+                current = executor;
+                if (current == null) {
+                    current = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                            new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                            runnable -> {
+                                Thread thread = new Thread(runnable, "database-writer");
+                                thread.setDaemon(true);
+                                return thread;
+                            },
+                            new ThreadPoolExecutor.AbortPolicy());
+                    executor = current;
+
+                    Gauge.builder("library.writer.queue", this, DatabaseWriter::getQueueLength)
+                            .description("Number of writes waiting for the database writer thread")
+                            .register(Metrics.globalRegistry);
+                }
+            }
+        }
+        return current;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.LibraryManagement.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * QueryPlanVerifier class is responsible for checking that the hot repository queries are served by an index.
+ * It runs EXPLAIN QUERY PLAN on each query and reports every query that falls back to a full table or index scan.
+ */
+public class QueryPlanVerifier {
+    /**
+     * The hot repository queries, indexed by the repository method that runs them.
+     */
+    private static final Map<String, String> HOT_QUERIES = new LinkedHashMap<>();
+
+    static {
+        HOT_QUERIES.put("BookRepository.findBookById", BookRepository.FIND_BOOK_BY_ID_QUERY);
+        HOT_QUERIES.put("BookRepository.findBooksByTitle", BookRepository.FIND_BOOKS_BY_TITLE_QUERY);
+        HOT_QUERIES.put("BookRepository.findBooksByAuthor", BookRepository.FIND_BOOKS_BY_AUTHOR_QUERY);
+        HOT_QUERIES.put("BookRepository.getBooksPage", BookRepository.BOOKS_PAGE_QUERY);
+        HOT_QUERIES.put("BookRepository.deleteBookByID", BookRepository.DELETE_BOOK_QUERY);
+        // Deleting a book cascades to its rentals, which SQLite looks up by book_id
+        HOT_QUERIES.put("BookRepository.deleteBookByID (cascade)", """
+                SELECT 1
+                FROM rentals
+                WHERE book_id=?
+                """);
+        HOT_QUERIES.put("UserRepository.findUserByUsername", UserRepository.FIND_USER_BY_USERNAME_QUERY);
+        HOT_QUERIES.put("UserRepository.findUserById", UserRepository.FIND_USER_BY_ID_QUERY);
+        HOT_QUERIES.put("UserRepository.authenticateUser", UserRepository.AUTHENTICATE_USER_QUERY);
+        HOT_QUERIES.put("UserRepository.getUsersPage", UserRepository.USERS_PAGE_QUERY);
+        HOT_QUERIES.put("RentalRepository.rentBook (reserve)", RentalRepository.RESERVE_BOOK_QUERY);
+        HOT_QUERIES.put("RentalRepository.rentBook (insert)", RentalRepository.INSERT_RENTAL_QUERY);
+        HOT_QUERIES.put("RentalRepository.returnBook (delete)", RentalRepository.DELETE_RENTAL_QUERY);
+        HOT_QUERIES.put("RentalRepository.returnBook (release)", RentalRepository.RELEASE_BOOK_QUERY);
+        HOT_QUERIES.put("RentalRepository.existsRental", RentalRepository.EXISTS_RENTAL_QUERY);
+        HOT_QUERIES.put("RentalRepository.getRentalsPage", RentalRepository.RENTALS_PAGE_QUERY);
+        HOT_QUERIES.put("RentalRepository.findRentalsByUserId", RentalRepository.FIND_RENTALS_BY_USER_QUERY);
+        HOT_QUERIES.put("RentalRepository.findRentalsByBookId", RentalRepository.FIND_RENTALS_BY_BOOK_QUERY);
+    }
+
+    /**
+     * Finds the hot queries whose plan contains a full table scan.
+     * The queries are only planned, never executed, so their parameters are left unbound.
+     *
+     * @param connection the database connection used to plan the queries
+     * @return a list describing each full table scan, empty if every hot query uses an index
+     */
+    public static ArrayList<String> findFullTableScans(Connection connection) {
+        ArrayList<String> fullScans = new ArrayList<>();
+
+        for (Map.Entry<String, String> hotQuery : HOT_QUERIES.entrySet()) {
+            try (PreparedStatement prepStatement = connection.prepareStatement("EXPLAIN QUERY PLAN " + hotQuery.getValue())) {
+                ResultSet resultSet = prepStatement.executeQuery();
+
+                while (resultSet.next()) {
+                    String detail = resultSet.getString("detail");
+                    // "SCAN" reads every row of the table or of one of its indexes, while "SEARCH" only reads the matching rows
+                    if (detail.startsWith("SCAN ")) {
+                        fullScans.add(hotQuery.getKey() + ": " + detail);
+                    }
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return fullScans;
+    }
+}
@@ -1,11 +1,15 @@
 package com.example.LibraryManagement.database;
 
+import com.example.LibraryManagement.models.Page;
 import com.example.LibraryManagement.models.Rental;
-import org.springframework.beans.factory.annotation.Value;
+import com.example.LibraryManagement.models.RentalOutcome;
 import org.springframework.stereotype.Component;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * RentalRepository class is responsible for managing rental data in the SQLite database.
@@ -14,13 +18,17 @@ import java.util.ArrayList;
 @Component
 public class RentalRepository {
     /**
-     * The URL of the SQLite database to connect to.
+     * The singleton instance of ConnectionPool.
      */
-    private static String DB_URL;
+    private final ConnectionPool connection_pool_instance;
     /**
-     * The singleton instance of UserRepository.
+     * The singleton instance of DatabaseWriter, running every write of the repository.
      */
-    private final UserRepository user_repository_instance;
+    private final DatabaseWriter database_writer_instance;
+    /**
+     * The timers of the public methods of RentalRepository.
+     */
+    private final RepositoryTimers timers = new RepositoryTimers("RentalRepository");
     /**
      * The singleton instance of BookRepository.
      */
@@ -29,18 +37,87 @@ public class RentalRepository {
      * The singleton instance of RentalRepository.
      */
     private static RentalRepository rental_repository_instance = null;
+    /**
+     * The query used to take a copy of a book, only if one is still available.
+     * The check and the decrement are a single statement, so no other rent can take the same copy in between.
+     */
+    static final String RESERVE_BOOK_QUERY = """
+            UPDATE books
+            SET available=available-1
+            WHERE id=? AND available > 0
+            RETURNING available
+            """;
+    /**
+     * The query used to insert a rental, only if the user exists and doesn't already rent a copy of the book.
+     */
+    static final String INSERT_RENTAL_QUERY = """
+            INSERT OR IGNORE INTO rentals (user_id, book_id)
+            SELECT id, ?
+            FROM users
+            WHERE id=?
+            """;
+    /**
+     * The query used to delete a rental.
+     */
+    static final String DELETE_RENTAL_QUERY = """
+            DELETE FROM rentals
+            WHERE user_id=? AND book_id=?
+            """;
+    /**
+     * The query used to put a returned copy of a book back on the shelf.
+     */
+    static final String RELEASE_BOOK_QUERY = """
+            UPDATE books
+            SET available=available+1
+            WHERE id=? AND available < copies
+            RETURNING available
+            """;
+    /**
+     * The query used to check if a rental exists.
+     */
+    static final String EXISTS_RENTAL_QUERY = """
+            SELECT *
+            FROM rentals
+            WHERE user_id=? AND book_id=?
+            """;
+    /**
+     * The query used to find the rentals of a user.
+     * The (user_id, book_id) primary key serves the lookup and already returns the rentals ordered by book_id.
+     */
+    static final String FIND_RENTALS_BY_USER_QUERY = """
+            SELECT user_id, book_id
+            FROM rentals
+            WHERE user_id=?
+            ORDER BY book_id
+            """;
+    /**
+     * The query used to find the rentals of a book.
+     */
+    static final String FIND_RENTALS_BY_BOOK_QUERY = """
+            SELECT user_id, book_id
+            FROM rentals
+            WHERE book_id=?
+            """;
+    /**
+     * The query used to read one page of rentals.
+     */
+    static final String RENTALS_PAGE_QUERY = """
+            SELECT rowid, user_id, book_id
+            FROM rentals
+            WHERE rowid > ?
+            ORDER BY rowid
+            LIMIT ?
+            """;
 
 
     /**
      * Constructor for RentalRepository class.
-     *
-     * @param dbUrl the URL of the SQLite database to connect to. This value is obtained from the application.properties file.
+     * Connections to the SQLite database are borrowed from the shared ConnectionPool for reads,
+     * while writes are queued for the DatabaseWriter.
      */
-    private RentalRepository(@Value("${db.url}") String dbUrl) {
-        // Initializing DB_URL from application.properties
-        DB_URL = dbUrl;
-
-        user_repository_instance = UserRepository.getInstance();
+    private RentalRepository() {
+        connection_pool_instance = ConnectionPool.getInstance();
+        database_writer_instance = DatabaseWriter.getInstance();
         book_repository_instance = BookRepository.getInstance();
     }
 
@@ -52,81 +129,210 @@ public class RentalRepository {
      */
     public static RentalRepository getInstance() {
         if (rental_repository_instance == null)
-            rental_repository_instance = new RentalRepository(DB_URL);
+            rental_repository_instance = new RentalRepository();
 
         return rental_repository_instance;
     }
 
     /**
      * Adds a rental to the database.
-     * The rental is added if the user and book both exist and the book is available.
-     * The book's availability is set to false after a successful rental.
+     * The rental is added if the user and book both exist, a copy of the book is available
+     * and the user doesn't already rent a copy of it.
+     * The number of available copies is decremented by a single guarded statement,
+     * and the decrement and the insertion run in a single transaction,
+     * so concurrent renters can never take more copies than there are.
      *
      * @param rental the rental to be added
      * @return true if the rental is successful, false otherwise
      */
     public boolean rentBook(Rental rental) {
-        // Checking if the user exists and the book is available
-        if(user_repository_instance.findUserById(rental.getUserId()).isEmpty() ||
-        !book_repository_instance.isAvailable(rental.getBookId())) {
-            return false;
-        }
+        return timers.record("rentBook", () -> {
+            return database_writer_instance.execute(connection -> {
+                // If anything fails, the unfinished transaction is rolled back by the DatabaseWriter
+                connection.setAutoCommit(false);
 
-        String query = """
-                INSERT INTO rentals (user_id, book_id)
-                VALUES (?,?)
-                """;
+                try(PreparedStatement reserveStatement = connection.prepareStatement(RESERVE_BOOK_QUERY);
+                    PreparedStatement insertStatement = connection.prepareStatement(INSERT_RENTAL_QUERY)) {
+                    int available = updateCopies(reserveStatement, rental.getBookId());
 
-        try(Connection connection = DriverManager.getConnection(DB_URL);
-            PreparedStatement prepStatement = connection.prepareStatement(query)) {
-            prepStatement.setInt(1, rental.getUserId());
-            prepStatement.setInt(2, rental.getBookId());
+                    if(available < 0) {
+                        connection.rollback();
+                        return false;
+                    }
 
-            // If the rental is successful, the book's availability is set to false
-            if(prepStatement.executeUpdate() > 0) {
-                return book_repository_instance.updateBookAvailability(rental.getBookId(), false);
-            }
-            return false;
+                    insertStatement.setInt(1, rental.getBookId());
+                    insertStatement.setInt(2, rental.getUserId());
 
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+                    if(insertStatement.executeUpdate() == 0) {
+                        connection.rollback();
+                        return false;
+                    }
+
+                    connection.commit();
+                    // The book is no longer available if this was its last copy
+                    book_repository_instance.bookAvailabilityChanged(rental.getBookId(), available > 0);
+                    return true;
+                }
+            });
+        });
     }
 
     /**
      * Returns a rented book in the database.
-     * The rental is removed if it exists and the book's availability is set to true.
+     * The rental is removed if it exists and the number of available copies of the book is incremented.
+     * Both changes run in a single transaction.
      *
      * @param rental the rental to be returned
      * @return true if the return is successful, false otherwise
      */
     public boolean returnBook(Rental rental) {
-        // Checking if the rental exists
-        if(!existsRental(rental)) {
-            return false;
-        }
+        return timers.record("returnBook", () -> {
+            return database_writer_instance.execute(connection -> {
+                // If anything fails, the unfinished transaction is rolled back by the DatabaseWriter
+                connection.setAutoCommit(false);
 
-        String query = """
-                DELETE FROM rentals
-                WHERE user_id=? AND book_id=?
-                """;
+                try(PreparedStatement deleteStatement = connection.prepareStatement(DELETE_RENTAL_QUERY);
+                    PreparedStatement releaseStatement = connection.prepareStatement(RELEASE_BOOK_QUERY)) {
+                    deleteStatement.setInt(1, rental.getUserId());
+                    deleteStatement.setInt(2, rental.getBookId());
 
-        try(Connection connection = DriverManager.getConnection(DB_URL);
-            PreparedStatement prepStatement = connection.prepareStatement(query)) {
-            prepStatement.setInt(1, rental.getUserId());
-            prepStatement.setInt(2, rental.getBookId());
+                    // Checking if the rental existed
+                    if(deleteStatement.executeUpdate() == 0) {
+                        connection.rollback();
+                        return false;
+                    }
 
-            // If the return is successful, the book's availability is set to true
-            if(prepStatement.executeUpdate() > 0) {
-                return book_repository_instance.updateBookAvailability(rental.getBookId(), true);
-            }
-            return false;
+                    int available = updateCopies(releaseStatement, rental.getBookId());
 
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
+                    connection.commit();
+                    // The book is available again, unless its copies were all withdrawn meanwhile
+                    book_repository_instance.bookAvailabilityChanged(rental.getBookId(), available > 0);
+                    return true;
+                }
+            });
+        });
+    }
+
+    /**
+     * Rents many books to a user in a single transaction.
+     * Each book is reserved and rented like in rentBook, reusing the same connection and statements,
+     * and the books that cannot be rented are reported without failing the others.
+     *
+     * @param userId the unique id of the user renting the books
+     * @param bookIds the ids of the books to be rented, in request order
+     * @return the outcome of every book, in request order
+     */
+    public ArrayList<RentalOutcome> rentBooks(int userId, List<Integer> bookIds) {
+        return timers.record("rentBooks", () -> {
+            ArrayList<RentalOutcome> outcomes = new ArrayList<>(bookIds.size());
+            LinkedHashMap<Integer, Boolean> availabilityChanges = new LinkedHashMap<>();
+
+            return database_writer_instance.execute(connection -> {
+                // If anything fails, the unfinished transaction is rolled back by the DatabaseWriter
+                connection.setAutoCommit(false);
+
+                try(PreparedStatement reserveStatement = connection.prepareStatement(RESERVE_BOOK_QUERY);
+                    PreparedStatement insertStatement = connection.prepareStatement(INSERT_RENTAL_QUERY);
+                    PreparedStatement releaseStatement = connection.prepareStatement(RELEASE_BOOK_QUERY)) {
+                    for (int bookId : bookIds) {
+                        int available = updateCopies(reserveStatement, bookId);
+
+                        if(available < 0) {
+                            outcomes.add(new RentalOutcome(bookId, RentalOutcome.Status.UNAVAILABLE));
+                            continue;
+                        }
+
+                        insertStatement.setInt(1, bookId);
+                        insertStatement.setInt(2, userId);
+
+                        if(insertStatement.executeUpdate() == 0) {
+                            // The user doesn't exist or already rents a copy, so the reservation of the copy is undone
+                            updateCopies(releaseStatement, bookId);
+                            outcomes.add(new RentalOutcome(bookId, RentalOutcome.Status.UNAVAILABLE));
+                            continue;
+                        }
+
+                        availabilityChanges.put(bookId, available > 0);
+                        outcomes.add(new RentalOutcome(bookId, RentalOutcome.Status.RENTED));
+                    }
+
+                    connection.commit();
+                }
+
+                recordAvailabilityChanges(availabilityChanges);
+                return outcomes;
+            });
+        });
+    }
+
+    /**
+     * Returns many rented books of a user in a single transaction.
+     * Each book is returned like in returnBook, reusing the same connection and statements,
+     * and the books the user has not rented are reported without failing the others.
+     *
+     * @param userId the unique id of the user returning the books
+     * @param bookIds the ids of the books to be returned, in request order
+     * @return the outcome of every book, in request order
+     */
+    public ArrayList<RentalOutcome> returnBooks(int userId, List<Integer> bookIds) {
+        return timers.record("returnBooks", () -> {
+            ArrayList<RentalOutcome> outcomes = new ArrayList<>(bookIds.size());
+            LinkedHashMap<Integer, Boolean> availabilityChanges = new LinkedHashMap<>();
+
+            return database_writer_instance.execute(connection -> {
+                // If anything fails, the unfinished transaction is rolled back by the DatabaseWriter
+                connection.setAutoCommit(false);
+
+                try(PreparedStatement deleteStatement = connection.prepareStatement(DELETE_RENTAL_QUERY);
+                    PreparedStatement releaseStatement = connection.prepareStatement(RELEASE_BOOK_QUERY)) {
+                    for (int bookId : bookIds) {
+                        deleteStatement.setInt(1, userId);
+                        deleteStatement.setInt(2, bookId);
+
+                        // Checking if the rental existed
+                        if(deleteStatement.executeUpdate() == 0) {
+                            outcomes.add(new RentalOutcome(bookId, RentalOutcome.Status.NOT_RENTED));
+                            continue;
+                        }
+
+                        availabilityChanges.put(bookId, updateCopies(releaseStatement, bookId) > 0);
+                        outcomes.add(new RentalOutcome(bookId, RentalOutcome.Status.RETURNED));
+                    }
+
+                    connection.commit();
+                }
+
+                recordAvailabilityChanges(availabilityChanges);
+                return outcomes;
+            });
+        });
+    }
+
+    /**
+     * Runs a guarded update of the available copies of a book, RESERVE_BOOK_QUERY or RELEASE_BOOK_QUERY.
+     * The result set is closed right away, so the statement is reset before the transaction commits.
+     *
+     * @param statement the prepared update
+     * @param bookId the id of the book
+     * @return the number of available copies after the update, or -1 if the guard of the update didn't match the book
+     * @throws SQLException if the update fails
+     */
+    private static int updateCopies(PreparedStatement statement, int bookId) throws SQLException {
+        statement.setInt(1, bookId);
+        try (ResultSet resultSet = statement.executeQuery()) {
+            return resultSet.next() ? resultSet.getInt("available") : -1;
         }
     }
 
+    /**
+     * Records the availability changes of a batch rent or return in the BookRepository.
+     *
+     * @param availabilityChanges the new availability of the books whose copies changed, indexed by id
+     */
+    private void recordAvailabilityChanges(LinkedHashMap<Integer, Boolean> availabilityChanges) {
+        availabilityChanges.forEach(book_repository_instance::bookAvailabilityChanged);
+    }
+
     /**
      * Checks if a rental exists in the database.
      * The rental is checked by user ID and book ID.
@@ -135,22 +341,20 @@ public class RentalRepository {
      * @return true if the rental exists, false otherwise
      */
     public boolean existsRental(Rental rental) {
-        String query = """
-                SELECT *
-                FROM rentals
-                WHERE user_id=? AND book_id=?
-                """;
-
-        try(Connection connection = DriverManager.getConnection(DB_URL);
-            PreparedStatement prepStatement = connection.prepareStatement(query)) {
-            prepStatement.setInt(1, rental.getUserId());
-            prepStatement.setInt(2, rental.getBookId());
+        return timers.record("existsRental", () -> {
+            try(Connection connection = connection_pool_instance.getConnection();
+                PreparedStatement prepStatement = connection.prepareStatement(EXISTS_RENTAL_QUERY)) {
+                prepStatement.setInt(1, rental.getUserId());
+                prepStatement.setInt(2, rental.getBookId());
 
-            return prepStatement.execute();
+                try (ResultSet resultSet = prepStatement.executeQuery()) {
+                    return resultSet.next();
+                }
 
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        });
     }
 
     /**
@@ -160,29 +364,160 @@ public class RentalRepository {
      * @return an ArrayList of Rental objects containing all rentals in the database
      */
     public ArrayList<Rental> getAllRentals() {
-        String query = """
-                    SELECT *
-                    FROM rentals
-                    """;
+        return timers.record("getAllRentals", () -> {
+            String query = """
+                        SELECT *
+                        FROM rentals
+                        """;
 
-        try(Connection connection = DriverManager.getConnection(DB_URL);
+            try(Connection connection = connection_pool_instance.getConnection();
+                PreparedStatement prepStatement = connection.prepareStatement(query)) {
+
+                ResultSet resultSet = prepStatement.executeQuery();
+
+                ArrayList<Rental> allRentals = new ArrayList<>();
+                while (resultSet.next()) {
+                    Rental rental = new Rental(
+                            resultSet.getInt("book_id"),
+                            resultSet.getInt("user_id")
+                    );
+
+                    allRentals.add(rental);
+                }
+                return allRentals;
+
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    /**
+     * Retrieves the rentals of a user from the database, ordered by book ID.
+     *
+     * @param userId the unique id of the user
+     * @return an ArrayList of Rental objects containing the rentals of the user, empty if the user has no rentals
+     */
+    public ArrayList<Rental> findRentalsByUserId(int userId) {
+        return timers.record("findRentalsByUserId", () -> findRentals(FIND_RENTALS_BY_USER_QUERY, userId));
+    }
+
+    /**
+     * Retrieves the rentals of a book from the database.
+     *
+     * @param bookId the unique id of the book
+     * @return an ArrayList of Rental objects containing the rentals of the book, empty if the book is not rented
+     */
+    public ArrayList<Rental> findRentalsByBookId(int bookId) {
+        return timers.record("findRentalsByBookId", () -> findRentals(FIND_RENTALS_BY_BOOK_QUERY, bookId));
+    }
+
+    /**
+     * Runs a rental lookup query taking a single id parameter.
+     *
+     * @param query the lookup query
+     * @param id the id bound to the query
+     * @return an ArrayList of the Rental objects found
+     */
+    private ArrayList<Rental> findRentals(String query, int id) {
+        try(Connection connection = connection_pool_instance.getConnection();
             PreparedStatement prepStatement = connection.prepareStatement(query)) {
+            prepStatement.setInt(1, id);
 
             ResultSet resultSet = prepStatement.executeQuery();
 
-            ArrayList<Rental> allRentals = new ArrayList<>();
+            ArrayList<Rental> rentals = new ArrayList<>();
             while (resultSet.next()) {
                 Rental rental = new Rental(
                         resultSet.getInt("book_id"),
                         resultSet.getInt("user_id")
                 );
 
-                allRentals.add(rental);
+                rentals.add(rental);
             }
-            return allRentals;
+            return rentals;
 
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * Retrieves one page of rentals from the database, ordered by their rowid.
+     * Rentals are keyed by (user_id, book_id), so the internal rowid of the table is used as the cursor.
+     * The page starts after the given cursor, so each page costs a single range scan.
+     *
+     * @param cursor the rowid of the last rental of the previous page, or 0 for the first page
+     * @param limit the maximum number of rentals in the page
+     * @return a Page containing the rentals and the cursor of the next page
+     */
+    public Page<Rental> getRentalsPage(int cursor, int limit) {
+        return timers.record("getRentalsPage", () -> {
+            try(Connection connection = connection_pool_instance.getConnection();
+                PreparedStatement prepStatement = connection.prepareStatement(RENTALS_PAGE_QUERY)) {
+                prepStatement.setInt(1, cursor);
+                // Fetching one extra row to know if there is a next page
+                prepStatement.setInt(2, limit + 1);
+
+                ResultSet resultSet = prepStatement.executeQuery();
+
+                ArrayList<Rental> rentals = new ArrayList<>();
+                int lastRowId = cursor;
+                boolean hasNextPage = false;
+                while (resultSet.next()) {
+                    if (rentals.size() == limit) {
+                        hasNextPage = true;
+                        break;
+                    }
+
+                    Rental rental = new Rental(
+                            resultSet.getInt("book_id"),
+                            resultSet.getInt("user_id")
+                    );
+
+                    rentals.add(rental);
+                    lastRowId = resultSet.getInt("rowid");
+                }
+                Integer nextCursor = hasNextPage ? lastRowId : null;
+                return new Page<>(rentals, nextCursor);
+
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    /**
+     * Streams all rentals from the database, ordered by rowid.
+     * Each row is handed to the action as soon as it is read, so no more than one rental is held in memory at a time.
+     *
+     * @param action the action to perform on each rental
+     */
+    public void forEachRental(Consumer<Rental> action) {
+        timers.record("forEachRental", () -> {
+            String query = """
+                        SELECT user_id, book_id
+                        FROM rentals
+                        ORDER BY rowid
+                        """;
+
+            try(Connection connection = connection_pool_instance.getConnection();
+                PreparedStatement prepStatement = connection.prepareStatement(query)) {
+
+                ResultSet resultSet = prepStatement.executeQuery();
+
+                while (resultSet.next()) {
+                    Rental rental = new Rental(
+                            resultSet.getInt("book_id"),
+                            resultSet.getInt("user_id")
+                    );
+
+                    action.accept(rental);
+                }
+
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
 }
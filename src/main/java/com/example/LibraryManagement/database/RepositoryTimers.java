@@ -0,0 +1,105 @@
+package com.example.LibraryManagement.database;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * RepositoryTimers class is responsible for timing the public methods of a repository.
+ * Every call is recorded in the "library.repository" timer, tagged with the repository, the method
+ * and the exception thrown by the call ("none" if it returned normally).
+ * The timers are registered in the global Micrometer registry, which Spring Boot exposes on /actuator/prometheus.
+ */
+class RepositoryTimers {
+    /**
+     * The name of the timer recording the repository calls.
+     */
+    static final String METRIC_NAME = "library.repository";
+
+    /**
+     * The name of the timed repository.
+     */
+    private final String repository;
+    /**
+     * The timers of the calls that returned normally, indexed by method.
+     */
+    private final ConcurrentHashMap<String, Timer> timers = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor for RepositoryTimers class.
+     *
+     * @param repository the name of the timed repository
+     */
+    RepositoryTimers(String repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Runs a repository method and records how long it took.
+     *
+     * @param method the name of the method
+     * @param body the body of the method
+     * @return the value returned by the method
+     * @param <T> the type of the value returned by the method
+     */
+    <T> T record(String method, Supplier<T> body) {
+        long start = System.nanoTime();
+        String exception = "none";
+        try {
+            return body.get();
+        } catch (RuntimeException e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            timer(method, exception).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Runs a repository method that returns nothing and records how long it took.
+     *
+     * @param method the name of the method
+     * @param body the body of the method
+     */
+    void record(String method, Runnable body) {
+        record(method, () -> {
+            body.run();
+            return null;
+        });
+    }
+
+    /**
+     * Returns the timer of a method and outcome, registering it on first use.
+     *
+     * @param method the name of the method
+     * @param exception the simple class name of the exception thrown by the call, or "none"
+     * @return the timer of the method and outcome
+     */
+    private Timer timer(String method, String exception) {
+        if (exception.equals("none")) {
+            return timers.computeIfAbsent(method, key -> register(method, exception));
+        }
+        // Failed calls are rare, so their timers are looked up in the registry instead of being kept here
+        return register(method, exception);
+    }
+
+    /**
+     * Registers the timer of a method and outcome in the global registry.
+     * Registering a timer that already exists returns the existing one.
+     *
+     * @param method the name of the method
+     * @param exception the simple class name of the exception thrown by the call, or "none"
+     * @return the timer of the method and outcome
+     */
+    private Timer register(String method, String exception) {
+        return Timer.builder(METRIC_NAME)
+                .description("Time spent in the repository methods")
+                .tag("repository", repository)
+                .tag("method", method)
+                .tag("exception", exception)
+                .register(Metrics.globalRegistry);
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.LibraryManagement.database;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * StatementCache class is responsible for keeping the prepared statements of one connection open between calls.
+ * Preparing a statement makes SQLite parse and plan its SQL, so the repositories would pay that cost on every call
+ * for the same few fixed queries. Instead, closing a statement handed out by the cache only resets it,
+ * and preparing the same SQL again on the connection reuses it.
+ * The least recently used statements are closed when the cache is full.
+ * A cache is only used by the thread holding its connection, so it is not thread-safe.
+ */
+class StatementCache {
+    /**
+     * The name of the counter recording the lookups in the statement caches.
+     */
+    static final String METRIC_NAME = "library.statement.cache";
+
+    /**
+     * The number of statements prepared again because they were not in the cache.
+     */
+    private static final Counter misses = counter("miss");
+    /**
+     * The number of statements reused from the cache.
+     */
+    private static final Counter hits = counter("hit");
+
+    /**
+     * The connection the statements are prepared on.
+     */
+    private final Connection connection;
+    /**
+     * The cached statements indexed by SQL, from the least to the most recently used.
+     */
+    private final LinkedHashMap<String, CachedStatement> statements;
+
+    /**
+     * Constructor for StatementCache class.
+     *
+     * @param connection the connection the statements are prepared on
+     * @param maxSize the maximum number of statements kept open
+     */
+    StatementCache(Connection connection, int maxSize) {
+        this.connection = connection;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() <= maxSize) {
+                    return false;
+                }
+                eldest.getValue().evict();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Prepares a statement, reusing the cached one if the same SQL was prepared before.
+     * If the cached statement is still in use, for example by a nested query, a new uncached statement is prepared.
+     *
+     * @param sql the SQL of the statement
+     * @return a statement that is reset and kept in the cache when it is closed
+     * @throws SQLException if the statement could not be prepared
+     */
+    PreparedStatement prepareStatement(String sql) throws SQLException {
+        CachedStatement cached = statements.get(sql);
+        if (cached != null && !cached.inUse) {
+            hits.increment();
+        } else {
+            misses.increment();
+            PreparedStatement statement = connection.prepareStatement(sql);
+            if (cached != null) {
+                return statement;
+            }
+            cached = new CachedStatement(statement);
+            statements.put(sql, cached);
+        }
+
+        cached.inUse = true;
+        return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class },
+                new CachedStatementHandler(cached));
+    }
+
+    /**
+     * Closes every cached statement.
+     * Statements that are still in use are closed when they are given back.
+     */
+    void close() {
+        Iterator<CachedStatement> iterator = statements.values().iterator();
+        while (iterator.hasNext()) {
+            iterator.next().evict();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Registers the counter of an outcome of the cache lookups in the global registry.
+     *
+     * @param result "hit" or "miss"
+     * @return the counter of the outcome
+     */
+    private static Counter counter(String result) {
+        return Counter.builder(METRIC_NAME)
+                .description("Lookups of prepared statements in the statement caches of the connections")
+                .tag("result", result)
+                .register(Metrics.globalRegistry);
+    }
+
+    /**
+     * A prepared statement kept in the cache.
+     */
+    private static final class CachedStatement {
+        /**
+         * The underlying prepared statement.
+         */
+        private final PreparedStatement statement;
+        /**
+         * Whether the statement has been handed out and not given back yet.
+         */
+        private boolean inUse = false;
+        /**
+         * Whether the statement has left the cache and must be closed once it is given back.
+         */
+        private boolean evicted = false;
+
+        /**
+         * Constructor for CachedStatement class.
+         *
+         * @param statement the underlying prepared statement
+         */
+        private CachedStatement(PreparedStatement statement) {
+            this.statement = statement;
+        }
+
+        /**
+         * Gives the statement back to the cache, resetting its parameters and batch for the next caller.
+         * Broken or evicted statements are closed.
+         */
+        private void release() {
+            inUse = false;
+            if (evicted) {
+                closeQuietly();
+                return;
+            }
+            try {
+                statement.clearParameters();
+                statement.clearBatch();
+            } catch (SQLException e) {
+                evicted = true;
+                closeQuietly();
+            }
+        }
+
+        /**
+         * Removes the statement from the cache, closing it now or once it is given back.
+         */
+        private void evict() {
+            evicted = true;
+            if (!inUse) {
+                closeQuietly();
+            }
+        }
+
+        /**
+         * Closes the underlying prepared statement.
+         */
+        private void closeQuietly() {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                System.err.println("Error closing prepared statement: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Wraps a cached statement so that closing it gives it back to the cache.
+     * The last result set of the statement is closed when it is given back, so that SQLite resets the statement
+     * and ends its read transaction even if the caller stopped reading before the last row.
+     * All other calls are passed on to the underlying statement.
+     */
+    private static final class CachedStatementHandler implements InvocationHandler {
+        /**
+         * The cached statement handed out.
+         */
+        private final CachedStatement cached;
+        /**
+         * The last result set returned by the statement, closed when the statement is given back.
+         */
+        private ResultSet resultSet;
+        /**
+         * Whether the statement has already been given back to the cache.
+         */
+        private boolean released = false;
+
+        /**
+         * Constructor for CachedStatementHandler class.
+         *
+         * @param cached the cached statement handed out
+         */
+        private CachedStatementHandler(CachedStatement cached) {
+            this.cached = cached;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!released) {
+                        released = true;
+                        try {
+                            if (resultSet != null) {
+                                resultSet.close();
+                            }
+                        } finally {
+                            cached.release();
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    return released || cached.statement.isClosed();
+                case "executeQuery":
+                    if (released)
+                        throw new SQLException("Statement has already been returned to the cache");
+                    resultSet = (ResultSet) invokeStatement(method, args);
+                    return resultSet;
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(cached.statement))
+                        return cached.statement;
+                    break;
+                default:
+                    if (released)
+                        throw new SQLException("Statement has already been returned to the cache");
+            }
+
+            return invokeStatement(method, args);
+        }
+
+        /**
+         * Passes a call on to the underlying statement.
+         *
+         * @param method the called method
+         * @param args the arguments of the call
+         * @return the value returned by the underlying statement
+         * @throws Throwable the exception thrown by the underlying statement
+         */
+        private Object invokeStatement(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(cached.statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
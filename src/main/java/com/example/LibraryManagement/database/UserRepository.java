@@ -1,12 +1,13 @@
 package com.example.LibraryManagement.database;
 
+import com.example.LibraryManagement.models.Page;
 import com.example.LibraryManagement.models.User;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * UserRepository class is responsible for managing user data in the SQLite database.
@@ -15,22 +16,64 @@ import java.util.Optional;
 @Component
 public class UserRepository {
     /**
-     * The URL of the SQLite database to connect to.
+     * The singleton instance of ConnectionPool.
      */
-    private static String DB_URL;
+    private final ConnectionPool connection_pool_instance;
+    /**
+     * The singleton instance of DatabaseWriter, running every write of the repository.
+     */
+    private final DatabaseWriter database_writer_instance;
+    /**
+     * The timers of the public methods of UserRepository.
+     */
+    private final RepositoryTimers timers = new RepositoryTimers("UserRepository");
     /**
      * The singleton instance of UserRepository.
      */
     private static UserRepository user_repository_instance = null;
+    /**
+     * The query used to find a user by username.
+     */
+    static final String FIND_USER_BY_USERNAME_QUERY = """
+            SELECT *
+            FROM users
+            WHERE username=?
+            """;
+    /**
+     * The query used to find a user by its id.
+     */
+    static final String FIND_USER_BY_ID_QUERY = """
+            SELECT *
+            FROM users
+            WHERE id=?
+            """;
+    /**
+     * The query used to authenticate a user.
+     */
+    static final String AUTHENTICATE_USER_QUERY = """
+            SELECT *
+            FROM users
+            WHERE username=? AND password_hash=?
+            """;
+    /**
+     * The query used to read one page of users.
+     */
+    static final String USERS_PAGE_QUERY = """
+            SELECT *
+            FROM users
+            WHERE id > ?
+            ORDER BY id
+            LIMIT ?
+            """;
 
     /**
      * Constructor for UserRepository class.
-     *
-     * @param dbUrl the URL of the SQLite database to connect to. This value is obtained from the application.properties file.
+     * Connections to the SQLite database are borrowed from the shared ConnectionPool for reads,
+     * while writes are queued for the DatabaseWriter.
      */
-    private UserRepository(@Value("${db.url}") String dbUrl) {
-        // Initializing DB_URL from application.properties
-        DB_URL = dbUrl;
+    private UserRepository() {
+        connection_pool_instance = ConnectionPool.getInstance();
+        database_writer_instance = DatabaseWriter.getInstance();
     }
 
     /**
@@ -42,7 +85,7 @@ public class UserRepository {
     public static UserRepository getInstance()
     {
         if (user_repository_instance == null)
-            user_repository_instance = new UserRepository(DB_URL);
+            user_repository_instance = new UserRepository();
 
         return user_repository_instance;
     }
@@ -55,28 +98,31 @@ public class UserRepository {
      * @return true if the user was registered successfully, false otherwise
      */
     public boolean registerUser(User user) {
-        // Checking if there is already a registered user with the same username
-        Optional<User> registeredUser = findUserByUsername(user.getUsername());
-        if(registeredUser.isPresent()) {
-            return false;
-        }
-
-        String query = """
-                    INSERT INTO users (username, password_hash, admin)
-                    VALUES (?,?,?)
-                    """;
-
-        try(Connection connection = DriverManager.getConnection(DB_URL);
-            PreparedStatement prepStatement = connection.prepareStatement(query)) {
-            prepStatement.setString(1, user.getUsername());
-            prepStatement.setString(2, user.getPasswordHash());
-            prepStatement.setBoolean(3, user.getAdmin());
-
-            return prepStatement.executeUpdate() > 0;
+        return timers.record("registerUser", () -> {
+            // Checking if there is already a registered user with the same username
+            Optional<User> registeredUser = findUserByUsername(user.getUsername());
+            if(registeredUser.isPresent()) {
+                return false;
+            }
 
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+            // Checking again while inserting, in case the same username was registered after the check
+            String query = """
+                        INSERT INTO users (username, password_hash, admin)
+                        SELECT ?,?,?
+                        WHERE NOT EXISTS (SELECT 1 FROM users WHERE username=?)
+                        """;
+
+            return database_writer_instance.execute(connection -> {
+                try(PreparedStatement prepStatement = connection.prepareStatement(query)) {
+                    prepStatement.setString(1, user.getUsername());
+                    prepStatement.setString(2, user.getPasswordHash());
+                    prepStatement.setBoolean(3, user.getAdmin());
+                    prepStatement.setString(4, user.getUsername());
+
+                    return prepStatement.executeUpdate() > 0;
+                }
+            });
+        });
     }
 
 
@@ -87,14 +133,8 @@ public class UserRepository {
      * @return an Optional containing the found user, or an empty Optional if no such user exists
      */
     private Optional<User> findUserByUsername(String username) {
-        String query = """
-                    SELECT *
-                    FROM users
-                    WHERE username=?
-                    """;
-
-        try(Connection connection = DriverManager.getConnection(DB_URL);
-            PreparedStatement prepStatement = connection.prepareStatement(query)) {
+        try(Connection connection = connection_pool_instance.getConnection();
+            PreparedStatement prepStatement = connection.prepareStatement(FIND_USER_BY_USERNAME_QUERY)) {
             prepStatement.setString(1, username);
 
             ResultSet resultSet = prepStatement.executeQuery();
@@ -122,32 +162,28 @@ public class UserRepository {
      * @return an Optional containing the found user, or an empty Optional if no such user exists
      */
     public Optional<User> findUserById(int id) {
-        String query = """
-                    SELECT *
-                    FROM users
-                    WHERE id=?
-                    """;
-
-        try(Connection connection = DriverManager.getConnection(DB_URL);
-            PreparedStatement prepStatement = connection.prepareStatement(query)) {
-            prepStatement.setInt(1, id);
-
-            ResultSet resultSet = prepStatement.executeQuery();
-
-            User user = null;
-            while (resultSet.next()) {
-                user = new User(
-                        resultSet.getInt("id"),
-                        resultSet.getString("username"),
-                        resultSet.getString("password_hash"),
-                        resultSet.getBoolean("admin")
-                );
+        return timers.record("findUserById", () -> {
+            try(Connection connection = connection_pool_instance.getConnection();
+                PreparedStatement prepStatement = connection.prepareStatement(FIND_USER_BY_ID_QUERY)) {
+                prepStatement.setInt(1, id);
+
+                ResultSet resultSet = prepStatement.executeQuery();
+
+                User user = null;
+                while (resultSet.next()) {
+                    user = new User(
+                            resultSet.getInt("id"),
+                            resultSet.getString("username"),
+                            resultSet.getString("password_hash"),
+                            resultSet.getBoolean("admin")
+                    );
+                }
+                return Optional.ofNullable(user);
+
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
             }
-            return Optional.ofNullable(user);
-
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+        });
     }
 
     /**
@@ -158,33 +194,29 @@ public class UserRepository {
      * @return an Optional containing the authenticated user, or an empty Optional if no matching user was found
      */
     public Optional<User> authenticateUser(String username, String hashedPassword) {
-        String query = """
-                    SELECT *
-                    FROM users
-                    WHERE username=? AND password_hash=?
-                    """;
-
-        try(Connection connection = DriverManager.getConnection(DB_URL);
-            PreparedStatement prepStatement = connection.prepareStatement(query)) {
-            prepStatement.setString(1, username);
-            prepStatement.setString(2, hashedPassword);
-
-            ResultSet resultSet = prepStatement.executeQuery();
-
-            User user = null;
-            while (resultSet.next()) {
-                user = new User(
-                        resultSet.getInt("id"),
-                        resultSet.getString("username"),
-                        resultSet.getString("password_hash"),
-                        resultSet.getBoolean("admin")
-                );
+        return timers.record("authenticateUser", () -> {
+            try(Connection connection = connection_pool_instance.getConnection();
+                PreparedStatement prepStatement = connection.prepareStatement(AUTHENTICATE_USER_QUERY)) {
+                prepStatement.setString(1, username);
+                prepStatement.setString(2, hashedPassword);
+
+                ResultSet resultSet = prepStatement.executeQuery();
+
+                User user = null;
+                while (resultSet.next()) {
+                    user = new User(
+                            resultSet.getInt("id"),
+                            resultSet.getString("username"),
+                            resultSet.getString("password_hash"),
+                            resultSet.getBoolean("admin")
+                    );
+                }
+                return Optional.ofNullable(user);
+
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
             }
-            return Optional.ofNullable(user);
-
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+        });
     }
 
 
@@ -194,31 +226,113 @@ public class UserRepository {
      * @return an ArrayList containing all users in the database
      */
     public ArrayList<User> getAllUsers() {
-        String query = """
-                    SELECT *
-                    FROM users
-                    """;
-
-        try(Connection connection = DriverManager.getConnection(DB_URL);
-            PreparedStatement prepStatement = connection.prepareStatement(query)) {
-
-            ResultSet resultSet = prepStatement.executeQuery();
-
-            ArrayList<User> allUsers = new ArrayList<>();
-            while (resultSet.next()) {
-                User user = new User(
-                        resultSet.getInt("id"),
-                        resultSet.getString("username"),
-                        resultSet.getString("password_hash"),
-                        resultSet.getBoolean("admin")
-                );
+        return timers.record("getAllUsers", () -> {
+            String query = """
+                        SELECT *
+                        FROM users
+                        """;
+
+            try(Connection connection = connection_pool_instance.getConnection();
+                PreparedStatement prepStatement = connection.prepareStatement(query)) {
+
+                ResultSet resultSet = prepStatement.executeQuery();
+
+                ArrayList<User> allUsers = new ArrayList<>();
+                while (resultSet.next()) {
+                    User user = new User(
+                            resultSet.getInt("id"),
+                            resultSet.getString("username"),
+                            resultSet.getString("password_hash"),
+                            resultSet.getBoolean("admin")
+                    );
+
+                    allUsers.add(user);
+                }
+                return allUsers;
+
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
 
-                allUsers.add(user);
+    /**
+     * Retrieves one page of users from the database, ordered by id.
+     * The page starts after the given cursor, so each page costs a single index range scan.
+     *
+     * @param cursor the id of the last user of the previous page, or 0 for the first page
+     * @param limit the maximum number of users in the page
+     * @return a Page containing the users and the cursor of the next page
+     */
+    public Page<User> getUsersPage(int cursor, int limit) {
+        return timers.record("getUsersPage", () -> {
+            try(Connection connection = connection_pool_instance.getConnection();
+                PreparedStatement prepStatement = connection.prepareStatement(USERS_PAGE_QUERY)) {
+                prepStatement.setInt(1, cursor);
+                // Fetching one extra row to know if there is a next page
+                prepStatement.setInt(2, limit + 1);
+
+                ResultSet resultSet = prepStatement.executeQuery();
+
+                ArrayList<User> users = new ArrayList<>();
+                boolean hasNextPage = false;
+                while (resultSet.next()) {
+                    if (users.size() == limit) {
+                        hasNextPage = true;
+                        break;
+                    }
+
+                    User user = new User(
+                            resultSet.getInt("id"),
+                            resultSet.getString("username"),
+                            resultSet.getString("password_hash"),
+                            resultSet.getBoolean("admin")
+                    );
+
+                    users.add(user);
+                }
+                Integer nextCursor = hasNextPage ? users.get(users.size() - 1).getId() : null;
+                return new Page<>(users, nextCursor);
+
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
             }
-            return allUsers;
+        });
+    }
 
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+    /**
+     * Streams all users from the database, ordered by id.
+     * Each row is handed to the action as soon as it is read, so no more than one user is held in memory at a time.
+     *
+     * @param action the action to perform on each user
+     */
+    public void forEachUser(Consumer<User> action) {
+        timers.record("forEachUser", () -> {
+            String query = """
+                        SELECT *
+                        FROM users
+                        ORDER BY id
+                        """;
+
+            try(Connection connection = connection_pool_instance.getConnection();
+                PreparedStatement prepStatement = connection.prepareStatement(query)) {
+
+                ResultSet resultSet = prepStatement.executeQuery();
+
+                while (resultSet.next()) {
+                    User user = new User(
+                            resultSet.getInt("id"),
+                            resultSet.getString("username"),
+                            resultSet.getString("password_hash"),
+                            resultSet.getBoolean("admin")
+                    );
+
+                    action.accept(user);
+                }
+
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        });
     }
 }
@@ -0,0 +1,68 @@
+package com.example.LibraryManagement.models;
+
+/**
+ * The AuthToken class represents a session token issued to an authenticated user.
+ * It contains the token and the number of seconds it stays valid.
+ */
+public class AuthToken {
+    /**
+     * The session token to send as "Authorization: Bearer {token}"
+     */
+    private String token;
+    /**
+     * The number of seconds the token stays valid
+     */
+    private long expiresIn;
+
+    /**
+     * Default constructor for the AuthToken class
+     */
+    public AuthToken() {}
+
+    /**
+     * Constructor for the AuthToken class
+     *
+     * @param token the session token
+     * @param expiresIn the number of seconds the token stays valid
+     */
+    public AuthToken(String token, long expiresIn) {
+        this.token = token;
+        this.expiresIn = expiresIn;
+    }
+
+    /**
+     * Getter for the session token.
+     *
+     * @return the session token
+     */
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * Setter for the session token.
+     *
+     * @param token the session token
+     */
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    /**
+     * Getter for the number of seconds the token stays valid.
+     *
+     * @return the number of seconds the token stays valid
+     */
+    public long getExpiresIn() {
+        return expiresIn;
+    }
+
+    /**
+     * Setter for the number of seconds the token stays valid.
+     *
+     * @param expiresIn the number of seconds the token stays valid
+     */
+    public void setExpiresIn(long expiresIn) {
+        this.expiresIn = expiresIn;
+    }
+}
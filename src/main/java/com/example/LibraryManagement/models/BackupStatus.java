@@ -0,0 +1,128 @@
+package com.example.LibraryManagement.models;
+
+/**
+ * The BackupStatus class represents a snapshot of the progress of the database backups.
+ * It contains the progress of the running or last backup and the outcome of the last finished one.
+ */
+public class BackupStatus {
+    /**
+     * Whether a backup is running
+     */
+    private boolean running;
+    /**
+     * The number of pages of the database being backed up, 0 before the first step
+     */
+    private int pageCount;
+    /**
+     * The number of pages left to copy
+     */
+    private int remainingPages;
+    /**
+     * The path of the last backup file written successfully, or null if there is none
+     */
+    private String lastBackupFile;
+    /**
+     * The time in milliseconds the last finished backup took
+     */
+    private long lastDurationMillis;
+    /**
+     * The error of the last finished backup, or null if it succeeded
+     */
+    private String lastError;
+
+    /**
+     * Default constructor for the BackupStatus class
+     */
+    public BackupStatus() {}
+
+    /**
+     * Constructor for the BackupStatus class
+     *
+     * @param running whether a backup is running
+     * @param pageCount the number of pages of the database being backed up
+     * @param remainingPages the number of pages left to copy
+     * @param lastBackupFile the path of the last backup file written successfully, or null if there is none
+     * @param lastDurationMillis the time in milliseconds the last finished backup took
+     * @param lastError the error of the last finished backup, or null if it succeeded
+     */
+    public BackupStatus(boolean running, int pageCount, int remainingPages, String lastBackupFile,
+                        long lastDurationMillis, String lastError) {
+        this.running = running;
+        this.pageCount = pageCount;
+        this.remainingPages = remainingPages;
+        this.lastBackupFile = lastBackupFile;
+        this.lastDurationMillis = lastDurationMillis;
+        this.lastError = lastError;
+    }
+
+    /**
+     * Getter for whether a backup is running.
+     *
+     * @return true if a backup is running; false otherwise
+     */
+    public boolean getRunning() {
+        return running;
+    }
+
+    /**
+     * Getter for the number of pages of the database being backed up.
+     *
+     * @return the number of pages of the database, 0 before the first step
+     */
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    /**
+     * Getter for the number of pages left to copy.
+     *
+     * @return the number of pages left to copy
+     */
+    public int getRemainingPages() {
+        return remainingPages;
+    }
+
+    /**
+     * Getter for the path of the last backup file written successfully.
+     *
+     * @return the path of the last backup file, or null if there is none
+     */
+    public String getLastBackupFile() {
+        return lastBackupFile;
+    }
+
+    /**
+     * Getter for the time in milliseconds the last finished backup took.
+     *
+     * @return the duration of the last finished backup in milliseconds
+     */
+    public long getLastDurationMillis() {
+        return lastDurationMillis;
+    }
+
+    /**
+     * Getter for the error of the last finished backup.
+     *
+     * @return the error message, or null if the last backup succeeded
+     */
+    public String getLastError() {
+        return lastError;
+    }
+
+    /**
+     * Returns a string representation of the backup status.
+     *
+     * @return a string representation of the backup status
+     */
+    @Override
+    public String toString() {
+        return "BackupStatus{" +
+                "running=" + running +
+                ", pageCount=" + pageCount +
+                ", remainingPages=" + remainingPages +
+                ", lastBackupFile='" + lastBackupFile + '\'' +
+                ", lastDurationMillis=" + lastDurationMillis +
+                ", lastError='" + lastError + '\'' +
+                '}';
+    }
+}
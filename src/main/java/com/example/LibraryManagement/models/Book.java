@@ -4,7 +4,7 @@ import java.util.Objects;
 
 /**
  * The Book class represents a book in the library.
- * It contains an id, title, author, and availability.
+ * It contains an id, title, author, the number of copies the library owns and the number of them not rented.
  */
 public class Book {
     /**
@@ -23,9 +23,14 @@ public class Book {
     private String author;
 
     /**
-     * Indicates whether the book is available for borrowing.
+     * The number of copies of the book owned by the library, one unless given otherwise.
      */
-    private boolean availability;
+    private int copies = 1;
+
+    /**
+     * The number of copies of the book that are not rented.
+     */
+    private int available;
 
     /**
      * Default constructor for the Book class
@@ -43,19 +48,34 @@ public class Book {
         this.author = author;
     }
 
+    /**
+     * Constructor for the Book class
+     *
+     * @param title the title of the book
+     * @param author the author of the book
+     * @param copies the number of copies of the book owned by the library
+     */
+    public Book(String title, String author, int copies) {
+        this.title = title;
+        this.author = author;
+        this.copies = copies;
+    }
+
     /**
      * Constructor for the Book class
      *
      * @param id the id of the book
      * @param title the title of the book
      * @param author the author of the book
-     * @param availability the availability of the book
+     * @param copies the number of copies of the book owned by the library
+     * @param available the number of copies of the book that are not rented
      */
-    public Book(int id, String title, String author, boolean availability) {
+    public Book(int id, String title, String author, int copies, int available) {
         this.id = id;
         this.title = title;
         this.author = author;
-        this.availability = availability;
+        this.copies = copies;
+        this.available = available;
     }
 
     /**
@@ -113,21 +133,49 @@ public class Book {
     }
 
     /**
-     * Getter for the availability of the book.
+     * Getter for the number of copies of the book owned by the library.
      *
-     * @return true if the book is available; false otherwise
+     * @return the number of copies of the book
      */
-    public boolean getAvailability() {
-        return availability;
+    public int getCopies() {
+        return copies;
+    }
+
+    /**
+     * Setter for the number of copies of the book owned by the library.
+     *
+     * @param copies the new number of copies of the book
+     */
+    public void setCopies(int copies) {
+        this.copies = copies;
+    }
+
+    /**
+     * Getter for the number of copies of the book that are not rented.
+     *
+     * @return the number of available copies of the book
+     */
+    public int getAvailable() {
+        return available;
     }
 
     /**
-     * Setter for the availability of the book.
+     * Setter for the number of copies of the book that are not rented.
      *
-     * @param availability true if the book is available; false otherwise
+     * @param available the new number of available copies of the book
      */
-    public void setAvailability(boolean availability) {
-        this.availability = availability;
+    public void setAvailable(int available) {
+        this.available = available;
+    }
+
+    /**
+     * Getter for the availability of the book.
+     * A book is available as long as one of its copies is not rented.
+     *
+     * @return true if the book is available; false otherwise
+     */
+    public boolean getAvailability() {
+        return available > 0;
     }
 
     /**
@@ -141,7 +189,8 @@ public class Book {
                 "id=" + id +
                 ", title='" + title + '\'' +
                 ", author='" + author + '\'' +
-                ", availability=" + availability +
+                ", copies=" + copies +
+                ", available=" + available +
                 '}';
     }
 
@@ -0,0 +1,95 @@
+package com.example.LibraryManagement.models;
+
+import java.util.ArrayList;
+
+/**
+ * The BulkAddResult class represents the result of a bulk book import.
+ * It contains the number of created, duplicate and invalid rows and the outcome of every row.
+ */
+public class BulkAddResult {
+    /**
+     * The number of books that were added
+     */
+    private long created;
+    /**
+     * The number of rows ignored because the book already exists
+     */
+    private long duplicates;
+    /**
+     * The number of rows skipped because they are missing the title or the author
+     */
+    private long invalid;
+    /**
+     * The outcome of every row, in request order
+     */
+    private ArrayList<BulkRowOutcome> rows = new ArrayList<>();
+
+    /**
+     * Default constructor for the BulkAddResult class
+     */
+    public BulkAddResult() {}
+
+    /**
+     * Records the outcome of the next row and updates the counters.
+     *
+     * @param outcome the outcome of the row
+     */
+    public void add(BulkRowOutcome outcome) {
+        switch (outcome.getStatus()) {
+            case CREATED -> created++;
+            case DUPLICATE -> duplicates++;
+            case INVALID -> invalid++;
+        }
+        rows.add(outcome);
+    }
+
+    /**
+     * Getter for the number of books that were added.
+     *
+     * @return the number of books that were added
+     */
+    public long getCreated() {
+        return created;
+    }
+
+    /**
+     * Getter for the number of rows ignored because the book already exists.
+     *
+     * @return the number of duplicate rows
+     */
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * Getter for the number of rows skipped because they are missing the title or the author.
+     *
+     * @return the number of invalid rows
+     */
+    public long getInvalid() {
+        return invalid;
+    }
+
+    /**
+     * Getter for the outcome of every row.
+     *
+     * @return the outcome of every row, in request order
+     */
+    public ArrayList<BulkRowOutcome> getRows() {
+        return rows;
+    }
+
+    /**
+     * Returns a string representation of the bulk import result.
+     *
+     * @return a string representation of the bulk import result
+     */
+    @Override
+    public String toString() {
+        return "BulkAddResult{" +
+                "created=" + created +
+                ", duplicates=" + duplicates +
+                ", invalid=" + invalid +
+                '}';
+    }
+}
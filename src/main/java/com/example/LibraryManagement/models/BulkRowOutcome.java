@@ -0,0 +1,99 @@
+package com.example.LibraryManagement.models;
+
+/**
+ * The BulkRowOutcome class represents the outcome of one row of a bulk book import.
+ * It contains the position of the row in the request and what happened to it.
+ */
+public class BulkRowOutcome {
+    /**
+     * The possible outcomes of a row
+     */
+    public enum Status {
+        /**
+         * The book was added
+         */
+        CREATED,
+        /**
+         * A book with the same title and author already exists, so the row was ignored
+         */
+        DUPLICATE,
+        /**
+         * The row is missing the title or the author, so it was skipped
+         */
+        INVALID
+    }
+
+    /**
+     * The zero-based position of the row in the request
+     */
+    private long index;
+    /**
+     * What happened to the row
+     */
+    private Status status;
+
+    /**
+     * Default constructor for the BulkRowOutcome class
+     */
+    public BulkRowOutcome() {}
+
+    /**
+     * Constructor for the BulkRowOutcome class
+     *
+     * @param index the zero-based position of the row in the request
+     * @param status what happened to the row
+     */
+    public BulkRowOutcome(long index, Status status) {
+        this.index = index;
+        this.status = status;
+    }
+
+    /**
+     * Getter for the position of the row in the request.
+     *
+     * @return the zero-based position of the row in the request
+     */
+    public long getIndex() {
+        return index;
+    }
+
+    /**
+     * Setter for the position of the row in the request.
+     *
+     * @param index the zero-based position of the row in the request
+     */
+    public void setIndex(long index) {
+        this.index = index;
+    }
+
+    /**
+     * Getter for the outcome of the row.
+     *
+     * @return what happened to the row
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Setter for the outcome of the row.
+     *
+     * @param status what happened to the row
+     */
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    /**
+     * Returns a string representation of the row outcome.
+     *
+     * @return a string representation of the row outcome
+     */
+    @Override
+    public String toString() {
+        return "BulkRowOutcome{" +
+                "index=" + index +
+                ", status=" + status +
+                '}';
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.LibraryManagement.models;
+
+/**
+ * The CacheMetrics class represents a snapshot of an in-memory cache usage.
+ * It contains the cache size and the hit, miss and eviction counters.
+ */
+public class CacheMetrics {
+    /**
+     * The approximate number of entries currently in the cache
+     */
+    private long size;
+    /**
+     * The maximum number of entries held in the cache
+     */
+    private long maxSize;
+    /**
+     * The number of lookups served from the cache since startup
+     */
+    private long hits;
+    /**
+     * The number of lookups that had to go to the database since startup
+     */
+    private long misses;
+    /**
+     * The ratio of lookups served from the cache
+     */
+    private double hitRate;
+    /**
+     * The number of entries evicted to keep the cache within its maximum size
+     */
+    private long evictions;
+
+    /**
+     * Default constructor for the CacheMetrics class
+     */
+    public CacheMetrics() {}
+
+    /**
+     * Constructor for the CacheMetrics class
+     *
+     * @param size the approximate number of entries currently in the cache
+     * @param maxSize the maximum number of entries held in the cache
+     * @param hits the number of lookups served from the cache
+     * @param misses the number of lookups that had to go to the database
+     * @param hitRate the ratio of lookups served from the cache
+     * @param evictions the number of entries evicted to keep the cache within its maximum size
+     */
+    public CacheMetrics(long size, long maxSize, long hits, long misses, double hitRate, long evictions) {
+        this.size = size;
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+        this.hitRate = hitRate;
+        this.evictions = evictions;
+    }
+
+    /**
+     * Getter for the approximate number of entries currently in the cache.
+     *
+     * @return the approximate number of entries in the cache
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Getter for the maximum number of entries held in the cache.
+     *
+     * @return the maximum number of entries in the cache
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Getter for the number of lookups served from the cache.
+     *
+     * @return the number of cache hits
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Getter for the number of lookups that had to go to the database.
+     *
+     * @return the number of cache misses
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Getter for the ratio of lookups served from the cache.
+     *
+     * @return the cache hit rate, between 0 and 1
+     */
+    public double getHitRate() {
+        return hitRate;
+    }
+
+    /**
+     * Getter for the number of entries evicted to keep the cache within its maximum size.
+     *
+     * @return the number of evictions
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns a string representation of the cache metrics.
+     *
+     * @return a string representation of the cache metrics
+     */
+    @Override
+    public String toString() {
+        return "CacheMetrics{" +
+                "size=" + size +
+                ", maxSize=" + maxSize +
+                ", hits=" + hits +
+                ", misses=" + misses +
+                ", hitRate=" + hitRate +
+                ", evictions=" + evictions +
+                '}';
+    }
+}
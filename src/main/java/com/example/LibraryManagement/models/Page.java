@@ -0,0 +1,85 @@
+package com.example.LibraryManagement.models;
+
+import java.util.ArrayList;
+
+/**
+ * The Page class represents one page of a cursor-paginated listing.
+ * It contains the items of the page and the cursor to request the next page with.
+ *
+ * @param <T> the type of the items in the page
+ */
+public class Page<T> {
+    /**
+     * The items of the page
+     */
+    private ArrayList<T> items;
+    /**
+     * The cursor of the next page, or null if this is the last page
+     */
+    private Integer nextCursor;
+
+    /**
+     * Default constructor for the Page class
+     */
+    public Page() {}
+
+    /**
+     * Constructor for the Page class
+     *
+     * @param items the items of the page
+     * @param nextCursor the cursor of the next page, or null if this is the last page
+     */
+    public Page(ArrayList<T> items, Integer nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Getter for the items of the page.
+     *
+     * @return the items of the page
+     */
+    public ArrayList<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Setter for the items of the page.
+     *
+     * @param items the items of the page
+     */
+    public void setItems(ArrayList<T> items) {
+        this.items = items;
+    }
+
+    /**
+     * Getter for the cursor of the next page.
+     *
+     * @return the cursor of the next page, or null if this is the last page
+     */
+    public Integer getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Setter for the cursor of the next page.
+     *
+     * @param nextCursor the cursor of the next page, or null if this is the last page
+     */
+    public void setNextCursor(Integer nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Returns a string representation of the page.
+     *
+     * @return a string representation of the page
+     */
+    @Override
+    public String toString() {
+        return "Page{" +
+                "items=" + items +
+                ", nextCursor=" + nextCursor +
+                '}';
+    }
+}
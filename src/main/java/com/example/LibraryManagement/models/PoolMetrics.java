@@ -0,0 +1,144 @@
+package com.example.LibraryManagement.models;
+
+/**
+ * The PoolMetrics class represents a snapshot of the database connection pool usage.
+ * It contains the pool size, the number of open and idle connections and the wait-time statistics.
+ */
+public class PoolMetrics {
+    /**
+     * The maximum number of connections kept open by the pool
+     */
+    private int poolSize;
+    /**
+     * The number of connections currently open, both idle and in use
+     */
+    private int openConnections;
+    /**
+     * The number of open connections currently not in use
+     */
+    private int idleConnections;
+    /**
+     * The number of connections handed out since startup
+     */
+    private long acquisitions;
+    /**
+     * The number of callers that gave up waiting for a connection
+     */
+    private long timeouts;
+    /**
+     * The average time in milliseconds callers waited for a connection
+     */
+    private double averageWaitMillis;
+    /**
+     * The longest time in milliseconds a caller waited for a connection
+     */
+    private double maxWaitMillis;
+
+    /**
+     * Default constructor for the PoolMetrics class
+     */
+    public PoolMetrics() {}
+
+    /**
+     * Constructor for the PoolMetrics class
+     *
+     * @param poolSize the maximum number of connections kept open by the pool
+     * @param openConnections the number of connections currently open
+     * @param idleConnections the number of open connections currently not in use
+     * @param acquisitions the number of connections handed out since startup
+     * @param timeouts the number of callers that gave up waiting for a connection
+     * @param averageWaitMillis the average time in milliseconds callers waited for a connection
+     * @param maxWaitMillis the longest time in milliseconds a caller waited for a connection
+     */
+    public PoolMetrics(int poolSize, int openConnections, int idleConnections, long acquisitions,
+                       long timeouts, double averageWaitMillis, double maxWaitMillis) {
+        this.poolSize = poolSize;
+        this.openConnections = openConnections;
+        this.idleConnections = idleConnections;
+        this.acquisitions = acquisitions;
+        this.timeouts = timeouts;
+        this.averageWaitMillis = averageWaitMillis;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * Getter for the maximum number of connections kept open by the pool.
+     *
+     * @return the maximum number of connections kept open by the pool
+     */
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    /**
+     * Getter for the number of connections currently open.
+     *
+     * @return the number of connections currently open
+     */
+    public int getOpenConnections() {
+        return openConnections;
+    }
+
+    /**
+     * Getter for the number of open connections currently not in use.
+     *
+     * @return the number of idle connections
+     */
+    public int getIdleConnections() {
+        return idleConnections;
+    }
+
+    /**
+     * Getter for the number of connections handed out since startup.
+     *
+     * @return the number of connections handed out
+     */
+    public long getAcquisitions() {
+        return acquisitions;
+    }
+
+    /**
+     * Getter for the number of callers that gave up waiting for a connection.
+     *
+     * @return the number of timed out acquisitions
+     */
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    /**
+     * Getter for the average time in milliseconds callers waited for a connection.
+     *
+     * @return the average wait time in milliseconds
+     */
+    public double getAverageWaitMillis() {
+        return averageWaitMillis;
+    }
+
+    /**
+     * Getter for the longest time in milliseconds a caller waited for a connection.
+     *
+     * @return the longest wait time in milliseconds
+     */
+    public double getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    /**
+     * Returns a string representation of the pool metrics.
+     *
+     * @return a string representation of the pool metrics
+     */
+    @Override
+    public String toString() {
+        return "PoolMetrics{" +
+                "poolSize=" + poolSize +
+                ", openConnections=" + openConnections +
+                ", idleConnections=" + idleConnections +
+                ", acquisitions=" + acquisitions +
+                ", timeouts=" + timeouts +
+                ", averageWaitMillis=" + averageWaitMillis +
+                ", maxWaitMillis=" + maxWaitMillis +
+                '}';
+    }
+}
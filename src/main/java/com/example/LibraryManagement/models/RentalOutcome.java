@@ -0,0 +1,103 @@
+package com.example.LibraryManagement.models;
+
+/**
+ * The RentalOutcome class represents the outcome of one book of a batch rent or return.
+ * It contains the id of the book and what happened to it.
+ */
+public class RentalOutcome {
+    /**
+     * The possible outcomes of a book
+     */
+    public enum Status {
+        /**
+         * The book was rented
+         */
+        RENTED,
+        /**
+         * The book doesn't exist or is already rented, so it was not rented
+         */
+        UNAVAILABLE,
+        /**
+         * The book was returned
+         */
+        RETURNED,
+        /**
+         * The user has not rented the book, so it was not returned
+         */
+        NOT_RENTED
+    }
+
+    /**
+     * The unique id of the book
+     */
+    private int bookId;
+    /**
+     * What happened to the book
+     */
+    private Status status;
+
+    /**
+     * Default constructor for the RentalOutcome class
+     */
+    public RentalOutcome() {}
+
+    /**
+     * Constructor for the RentalOutcome class
+     *
+     * @param bookId the unique id of the book
+     * @param status what happened to the book
+     */
+    public RentalOutcome(int bookId, Status status) {
+        this.bookId = bookId;
+        this.status = status;
+    }
+
+    /**
+     * Getter for the id of the book.
+     *
+     * @return the unique id of the book
+     */
+    public int getBookId() {
+        return bookId;
+    }
+
+    /**
+     * Setter for the id of the book.
+     *
+     * @param bookId the unique id of the book
+     */
+    public void setBookId(int bookId) {
+        this.bookId = bookId;
+    }
+
+    /**
+     * Getter for the outcome of the book.
+     *
+     * @return what happened to the book
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Setter for the outcome of the book.
+     *
+     * @param status what happened to the book
+     */
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    /**
+     * Returns a string representation of the rental outcome.
+     *
+     * @return a string representation of the rental outcome
+     */
+    @Override
+    public String toString() {
+        return "RentalOutcome{" +
+                "bookId=" + bookId +
+                ", status=" + status +
+                '}';
+    }
+}
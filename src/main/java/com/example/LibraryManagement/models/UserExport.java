@@ -0,0 +1,77 @@
+package com.example.LibraryManagement.models;
+
+/**
+ * The UserExport class represents a user as written by the user export.
+ * It contains the id, username, and admin status of the user, but never the password hash.
+ */
+public class UserExport {
+    /**
+     * The unique id of the user
+     */
+    private int id;
+    /**
+     * The username of the user
+     */
+    private String username;
+    /**
+     * The admin status of the user
+     */
+    private Boolean admin;
+
+    /**
+     * Default constructor for the UserExport class
+     */
+    public UserExport() {}
+
+    /**
+     * Constructor for the UserExport class, copying the exported fields of a user
+     *
+     * @param user the user to be exported
+     */
+    public UserExport(User user) {
+        this.id = user.getId();
+        this.username = user.getUsername();
+        this.admin = user.getAdmin();
+    }
+
+    /**
+     * Getter for the id field.
+     *
+     * @return the unique id of the user.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Getter for the username field.
+     *
+     * @return the username of the user.
+     */
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * Getter for the admin field.
+     *
+     * @return the admin status of the user.
+     */
+    public Boolean getAdmin() {
+        return admin;
+    }
+
+    /**
+     * Returns a string representation of the exported user.
+     *
+     * @return a string representation of the exported user
+     */
+    @Override
+    public String toString() {
+        return "UserExport{" +
+                "id=" + id +
+                ", username='" + username + '\'' +
+                ", admin=" + admin +
+                '}';
+    }
+}
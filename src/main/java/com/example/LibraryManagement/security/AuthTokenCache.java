@@ -0,0 +1,124 @@
+package com.example.LibraryManagement.security;
+
+import com.example.LibraryManagement.models.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * AuthTokenCache class is responsible for issuing short-lived session tokens and remembering the user each token belongs to.
+ * The tokens are held in a bounded in-memory cache and expire after the configured time to live.
+ * Each token keeps a copy of its user. Expiry is the only way a token is dropped, because no path updates or deletes users:
+ * registering only adds new users, which have no tokens yet. An update or delete path must also drop the tokens of that user.
+ */
+@Component
+public class AuthTokenCache {
+    /**
+     * The time in seconds a session token stays valid.
+     */
+    private static long TTL_SECONDS;
+    /**
+     * The maximum number of session tokens held in memory.
+     */
+    private static long MAX_ENTRIES;
+    /**
+     * The singleton instance of AuthTokenCache.
+     */
+    private static AuthTokenCache auth_token_cache_instance = null;
+
+    /**
+     * The source of randomness used to generate session tokens.
+     */
+    private final SecureRandom random = new SecureRandom();
+    /**
+     * The authenticated users indexed by their session token.
+     * It is created on first use, once the configuration has been read from application.properties.
+     */
+    private volatile Cache<String, User> tokens;
+
+    /**
+     * Constructor for AuthTokenCache class.
+     *
+     * @param ttlSeconds the time in seconds a session token stays valid. This value is obtained from the application.properties file.
+     * @param maxEntries the maximum number of session tokens held in memory. This value is obtained from the application.properties file.
+     */
+    public AuthTokenCache(@Value("${auth.token.ttl-seconds}") long ttlSeconds,
+                          @Value("${auth.token.max-entries}") long maxEntries) {
+        // Initializing the cache configuration from application.properties
+        TTL_SECONDS = ttlSeconds;
+        MAX_ENTRIES = maxEntries;
+    }
+
+    /**
+     * Returns the singleton instance of AuthTokenCache.
+     * Initializes the instance if it hasn't been created yet.
+     *
+     * @return the singleton instance of AuthTokenCache
+     */
+    public static AuthTokenCache getInstance()
+    {
+        if (auth_token_cache_instance == null)
+            auth_token_cache_instance = new AuthTokenCache(TTL_SECONDS, MAX_ENTRIES);
+
+        return auth_token_cache_instance;
+    }
+
+    /**
+     * Issues a new session token for an authenticated user.
+     *
+     * @param user the authenticated user
+     * @return the new session token
+     */
+    public String issueToken(User user) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        tokens().put(token, user);
+        return token;
+    }
+
+    /**
+     * Finds the user a session token was issued to.
+     *
+     * @param token the session token
+     * @return an Optional containing the user, or an empty Optional if the token is unknown or has expired
+     */
+    public Optional<User> findUser(String token) {
+        return Optional.ofNullable(tokens().getIfPresent(token));
+    }
+
+    /**
+     * Getter for the time in seconds a session token stays valid.
+     *
+     * @return the time to live of a session token in seconds
+     */
+    public long getTtlSeconds() {
+        return TTL_SECONDS;
+    }
+
+    /**
+     * Returns the token cache, creating it on first use.
+     *
+     * @return the token cache
+     */
+    private Cache<String, User> tokens() {
+        if (tokens == null) {
+            synchronized (this) {
+                if (tokens == null) {
+                    tokens = Caffeine.newBuilder()
+                            .expireAfterWrite(Duration.ofSeconds(TTL_SECONDS))
+                            .maximumSize(MAX_ENTRIES)
+                            .build();
+                }
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.LibraryManagement.security;
+
+import com.example.LibraryManagement.models.User;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * The AuthenticationFilter class authenticates every request carrying an Authorization header exactly once, before it reaches the API.
+ * The authenticated user is attached to the request as the USER_ATTRIBUTE attribute,
+ * which the endpoints read with @RequestAttribute instead of decoding and checking the credentials themselves.
+ * Requests with missing or wrong credentials are passed on without the attribute, and the endpoints decide how to answer them.
+ * It runs right before the RateLimitFilter, which limits the authenticated users by user id.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class AuthenticationFilter extends OncePerRequestFilter {
+    /**
+     * The name of the request attribute holding the authenticated user.
+     */
+    public static final String USER_ATTRIBUTE = "com.example.LibraryManagement.authenticatedUser";
+
+    /**
+     * Authenticates the request and attaches the authenticated user to it.
+     *
+     * @param request the HTTP request
+     * @param response the HTTP response
+     * @param filterChain the rest of the filter chain
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader != null) {
+            // The Authenticator is looked up here because the filters are created before the repositories are configured
+            User user = Authenticator.getInstance().authenticate(authHeader).orElse(null);
+            if (user != null) {
+                request.setAttribute(USER_ATTRIBUTE, user);
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.LibraryManagement.security;
+
+import com.example.LibraryManagement.database.UserRepository;
+import com.example.LibraryManagement.models.User;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Authenticator class resolves the user behind the Authorization header of a request.
+ * It accepts session tokens issued by the login endpoint as well as Basic HTTP Authentication credentials.
+ */
+@Component
+public class Authenticator {
+    /**
+     * The prefix of an Authorization header carrying a session token.
+     */
+    private static final String BEARER_PREFIX = "Bearer ";
+    /**
+     * The name of the timer recording the authentication attempts.
+     */
+    static final String METRIC_NAME = "library.auth";
+    /**
+     * The singleton instance of Authenticator.
+     */
+    private static Authenticator authenticator_instance = null;
+
+    /**
+     * The UserRepository instance used to interact with the database.
+     */
+    private final UserRepository userRepository;
+    /**
+     * The AuthTokenCache instance holding the authenticated session tokens.
+     */
+    private final AuthTokenCache authTokenCache;
+    /**
+     * The timers of the successful and failed Basic credentials checks, indexed by success.
+     */
+    private final Timer[] basicTimers;
+    /**
+     * The timers of the successful and failed session token checks, indexed by success.
+     */
+    private final Timer[] bearerTimers;
+
+    /**
+     * Constructor for Authenticator class.
+     * Initializes the UserRepository and AuthTokenCache instances, and registers the timers once,
+     * so recording an attempt doesn't look them up in the registry.
+     */
+    private Authenticator() {
+        this.userRepository = UserRepository.getInstance();
+        this.authTokenCache = AuthTokenCache.getInstance();
+        this.basicTimers = new Timer[] { timer("basic", "failure"), timer("basic", "success") };
+        this.bearerTimers = new Timer[] { timer("bearer", "failure"), timer("bearer", "success") };
+    }
+
+    /**
+     * Returns the singleton instance of Authenticator.
+     * Initializes the instance if it hasn't been created yet.
+     *
+     * @return the singleton instance of Authenticator
+     */
+    public static Authenticator getInstance()
+    {
+        if (authenticator_instance == null)
+            authenticator_instance = new Authenticator();
+
+        return authenticator_instance;
+    }
+
+    /**
+     * Authenticates the user behind an Authorization header.
+     * Session tokens are resolved from memory without hashing or querying the database.
+     * Basic credentials are hashed and checked against the database.
+     * Every attempt is recorded in the "library.auth" timer, tagged with the scheme and the result.
+     * A missing header is not an attempt and is not recorded.
+     *
+     * @param authHeader the value of the Authorization header, may be null
+     * @return an Optional containing the authenticated user, or an empty Optional if the credentials are missing or wrong
+     */
+    public Optional<User> authenticate(String authHeader) {
+        if (authHeader == null) {
+            return Optional.empty();
+        }
+
+        long start = System.nanoTime();
+        Optional<User> user = resolveUser(authHeader);
+
+        Timer[] timers = authHeader.startsWith(BEARER_PREFIX) ? bearerTimers : basicTimers;
+        timers[user.isPresent() ? 1 : 0].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        return user;
+    }
+
+    /**
+     * Registers the timer of a scheme and result in the global registry.
+     *
+     * @param scheme the authentication scheme, "basic" or "bearer"
+     * @param result the result of the attempt, "success" or "failure"
+     * @return the timer of the scheme and result
+     */
+    private static Timer timer(String scheme, String result) {
+        return Timer.builder(METRIC_NAME)
+                .description("Time spent authenticating requests")
+                .tag("scheme", scheme)
+                .tag("result", result)
+                .register(Metrics.globalRegistry);
+    }
+
+    /**
+     * Resolves the user behind an Authorization header.
+     *
+     * @param authHeader the value of the Authorization header
+     * @return an Optional containing the authenticated user, or an empty Optional if the credentials are wrong
+     */
+    private Optional<User> resolveUser(String authHeader) {
+        if (authHeader.startsWith(BEARER_PREFIX)) {
+            return authTokenCache.findUser(authHeader.substring(BEARER_PREFIX.length()));
+        }
+
+        // Decoding the username and password
+        String[] decodedCredentials = Utils.decodeAuthHeader(authHeader);
+        if (decodedCredentials == null) {
+            return Optional.empty();
+        }
+        String username = decodedCredentials[0];
+        String hashedPassword = decodedCredentials[1];
+
+        return userRepository.authenticateUser(username, hashedPassword);
+    }
+}
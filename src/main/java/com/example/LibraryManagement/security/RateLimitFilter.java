@@ -0,0 +1,81 @@
+package com.example.LibraryManagement.security;
+
+import com.example.LibraryManagement.models.User;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * The RateLimitFilter class applies the RateLimiter to the write endpoints, before the request reaches the API
+ * and so before any repository call.
+ * It runs after the AuthenticationFilter, so the authenticated users are limited by user id,
+ * while the requests without a valid user, such as the registrations, are limited by remote address.
+ * Rejected requests get a 429 Too Many Requests with a Retry-After header.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    /**
+     * Checks the rate limit of the client for the requested endpoint class, and rejects the request if it is exceeded.
+     *
+     * @param request the HTTP request
+     * @param response the HTTP response
+     * @param filterChain the rest of the filter chain
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        RateLimiter.EndpointClass endpointClass = endpointClass(request);
+        if (endpointClass != null) {
+            User user = (User) request.getAttribute(AuthenticationFilter.USER_ATTRIBUTE);
+            String client = user != null ? "user:" + user.getId() : "address:" + request.getRemoteAddr();
+
+            // The RateLimiter is looked up here because the filters are created before the limits are configured
+            long retryAfterSeconds = RateLimiter.getInstance().tryAcquire(endpointClass, client);
+            if (retryAfterSeconds > 0) {
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+                response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+                response.setCharacterEncoding("UTF-8");
+                response.getWriter().write("Too many requests, please retry later");
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Finds the rate limited endpoint class of a request.
+     *
+     * @param request the HTTP request
+     * @return the endpoint class, or null if the endpoint is not rate limited
+     */
+    private static RateLimiter.EndpointClass endpointClass(HttpServletRequest request) {
+        if (!request.getMethod().equals("POST")) {
+            return null;
+        }
+
+        String path = request.getServletPath();
+        if (path.startsWith("/api/rentals/rent") || path.startsWith("/api/rentals/return")) {
+            return RateLimiter.EndpointClass.RENTALS;
+        }
+        // Every POST endpoint of the books adds, updates or deletes books
+        if (path.startsWith("/api/books/")) {
+            return RateLimiter.EndpointClass.BOOK_WRITES;
+        }
+        if (path.equals("/api/users/register")) {
+            return RateLimiter.EndpointClass.REGISTER;
+        }
+        return null;
+    }
+}
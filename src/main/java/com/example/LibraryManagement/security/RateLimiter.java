@@ -0,0 +1,243 @@
+package com.example.LibraryManagement.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+
+/**
+ * RateLimiter class is responsible for limiting the rate of the write requests of every client.
+ * Every client gets a token bucket per class of endpoints, so a client looping on one endpoint class
+ * can neither fill the queue of the DatabaseWriter nor use up its own allowance for the other classes.
+ * The buckets are held in bounded in-memory caches, and the buckets left alone long enough to be full again are dropped,
+ * since a new bucket is the same as a full one.
+ */
+@Component
+public class RateLimiter {
+    /**
+     * The classes of endpoints, each limited by its own token buckets.
+     */
+    public enum EndpointClass {
+        /**
+         * The rent and return endpoints.
+         */
+        RENTALS,
+        /**
+         * The admin endpoints adding, updating and deleting books.
+         */
+        BOOK_WRITES,
+        /**
+         * The registration endpoint.
+         */
+        REGISTER
+    }
+
+    /**
+     * Whether the requests are rate limited at all.
+     */
+    private static boolean ENABLED;
+    /**
+     * The maximum number of clients tracked per endpoint class.
+     */
+    private static long MAX_CLIENTS;
+    /**
+     * The number of rent and return requests a client may burst.
+     */
+    private static double RENTALS_CAPACITY;
+    /**
+     * The number of rent and return requests per second a client may keep up.
+     */
+    private static double RENTALS_REFILL_PER_SECOND;
+    /**
+     * The number of book write requests a client may burst.
+     */
+    private static double BOOK_WRITES_CAPACITY;
+    /**
+     * The number of book write requests per second a client may keep up.
+     */
+    private static double BOOK_WRITES_REFILL_PER_SECOND;
+    /**
+     * The number of registrations a client may burst.
+     */
+    private static double REGISTER_CAPACITY;
+    /**
+     * The number of registrations per second a client may keep up.
+     */
+    private static double REGISTER_REFILL_PER_SECOND;
+    /**
+     * The singleton instance of RateLimiter.
+     */
+    private static RateLimiter rate_limiter_instance = null;
+
+    /**
+     * The token buckets of every endpoint class, indexed by client.
+     * They are created on first use, once the configuration has been read from application.properties.
+     */
+    private volatile EnumMap<EndpointClass, Cache<String, TokenBucket>> buckets;
+    /**
+     * The number of rejected requests of every endpoint class.
+     */
+    private final EnumMap<EndpointClass, Counter> rejections = new EnumMap<>(EndpointClass.class);
+
+    /**
+     * Constructor for RateLimiter class.
+     *
+     * @param enabled whether the requests are rate limited at all. This value is obtained from the application.properties file.
+     * @param maxClients the maximum number of clients tracked per endpoint class. This value is obtained from the application.properties file.
+     * @param rentalsCapacity the number of rent and return requests a client may burst. This value is obtained from the application.properties file.
+     * @param rentalsRefillPerSecond the number of rent and return requests per second a client may keep up. This value is obtained from the application.properties file.
+     * @param bookWritesCapacity the number of book write requests a client may burst. This value is obtained from the application.properties file.
+     * @param bookWritesRefillPerSecond the number of book write requests per second a client may keep up. This value is obtained from the application.properties file.
+     * @param registerCapacity the number of registrations a client may burst. This value is obtained from the application.properties file.
+     * @param registerRefillPerSecond the number of registrations per second a client may keep up. This value is obtained from the application.properties file.
+     * @throws IllegalArgumentException if a capacity is below 1 or a refill rate is not positive
+     */
+    public RateLimiter(@Value("${api.rate-limit.enabled}") boolean enabled,
+                       @Value("${api.rate-limit.max-clients}") long maxClients,
+                       @Value("${api.rate-limit.rentals.capacity}") double rentalsCapacity,
+                       @Value("${api.rate-limit.rentals.refill-per-second}") double rentalsRefillPerSecond,
+                       @Value("${api.rate-limit.book-writes.capacity}") double bookWritesCapacity,
+                       @Value("${api.rate-limit.book-writes.refill-per-second}") double bookWritesRefillPerSecond,
+                       @Value("${api.rate-limit.register.capacity}") double registerCapacity,
+                       @Value("${api.rate-limit.register.refill-per-second}") double registerRefillPerSecond) {
+        checkLimit("rentals", rentalsCapacity, rentalsRefillPerSecond);
+        checkLimit("book-writes", bookWritesCapacity, bookWritesRefillPerSecond);
+        checkLimit("register", registerCapacity, registerRefillPerSecond);
+
+        // Initializing the limits from application.properties
+        ENABLED = enabled;
+        MAX_CLIENTS = maxClients;
+        RENTALS_CAPACITY = rentalsCapacity;
+        RENTALS_REFILL_PER_SECOND = rentalsRefillPerSecond;
+        BOOK_WRITES_CAPACITY = bookWritesCapacity;
+        BOOK_WRITES_REFILL_PER_SECOND = bookWritesRefillPerSecond;
+        REGISTER_CAPACITY = registerCapacity;
+        REGISTER_REFILL_PER_SECOND = registerRefillPerSecond;
+
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            rejections.put(endpointClass, Counter.builder("library.rate.limited")
+                    .description("Requests rejected because their client went over the rate limit of the endpoint class")
+                    .tag("endpoint", endpointClass.name().toLowerCase())
+                    .register(Metrics.globalRegistry));
+        }
+    }
+
+    /**
+     * Returns the singleton instance of RateLimiter.
+     * Initializes the instance if it hasn't been created yet.
+     *
+     * @return the singleton instance of RateLimiter
+     */
+    public static RateLimiter getInstance()
+    {
+        if (rate_limiter_instance == null)
+            rate_limiter_instance = new RateLimiter(ENABLED, MAX_CLIENTS,
+                    RENTALS_CAPACITY, RENTALS_REFILL_PER_SECOND,
+                    BOOK_WRITES_CAPACITY, BOOK_WRITES_REFILL_PER_SECOND,
+                    REGISTER_CAPACITY, REGISTER_REFILL_PER_SECOND);
+
+        return rate_limiter_instance;
+    }
+
+    /**
+     * Takes a token from the bucket of a client for an endpoint class.
+     *
+     * @param endpointClass the class of the requested endpoint
+     * @param client the key of the client, the authenticated user or the remote address
+     * @return 0 if the request is allowed, otherwise the number of seconds to wait before retrying, at least 1
+     */
+    public long tryAcquire(EndpointClass endpointClass, String client) {
+        if (!ENABLED) {
+            return 0;
+        }
+
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets().get(endpointClass)
+                .get(client, key -> new TokenBucket(capacity(endpointClass), refillPerSecond(endpointClass), now));
+        long waitNanos = bucket.tryConsume(now);
+        if (waitNanos == 0) {
+            return 0;
+        }
+
+        rejections.get(endpointClass).increment();
+        return Math.max(1, (long) Math.ceil(waitNanos / 1_000_000_000d));
+    }
+
+    /**
+     * Checks the limit of an endpoint class read from application.properties.
+     * A bucket with less than one token would reject every request, and one that is never refilled would be kept forever.
+     *
+     * @param name the name of the endpoint class in application.properties
+     * @param capacity the number of requests a client may burst
+     * @param refillPerSecond the number of requests per second a client may keep up
+     * @throws IllegalArgumentException if the capacity is below 1 or the refill rate is not positive
+     */
+    private static void checkLimit(String name, double capacity, double refillPerSecond) {
+        if (!(capacity >= 1)) {
+            throw new IllegalArgumentException("api.rate-limit." + name + ".capacity must be at least 1, but is " + capacity);
+        }
+        if (!(refillPerSecond > 0)) {
+            throw new IllegalArgumentException("api.rate-limit." + name + ".refill-per-second must be positive, but is " + refillPerSecond);
+        }
+    }
+
+    /**
+     * Returns the number of requests of an endpoint class a client may burst.
+     *
+     * @param endpointClass the endpoint class
+     * @return the capacity of the token buckets of the endpoint class
+     */
+    private static double capacity(EndpointClass endpointClass) {
+        return switch (endpointClass) {
+            case RENTALS -> RENTALS_CAPACITY;
+            case BOOK_WRITES -> BOOK_WRITES_CAPACITY;
+            case REGISTER -> REGISTER_CAPACITY;
+        };
+    }
+
+    /**
+     * Returns the number of requests per second of an endpoint class a client may keep up.
+     *
+     * @param endpointClass the endpoint class
+     * @return the refill rate of the token buckets of the endpoint class
+     */
+    private static double refillPerSecond(EndpointClass endpointClass) {
+        return switch (endpointClass) {
+            case RENTALS -> RENTALS_REFILL_PER_SECOND;
+            case BOOK_WRITES -> BOOK_WRITES_REFILL_PER_SECOND;
+            case REGISTER -> REGISTER_REFILL_PER_SECOND;
+        };
+    }
+
+    /**
+     * Returns the token buckets of every endpoint class, creating them on first use.
+     * The bucket of a client is dropped once it has not been used for the time it takes to refill it completely.
+     *
+     * @return the token buckets indexed by endpoint class and client
+     */
+    private EnumMap<EndpointClass, Cache<String, TokenBucket>> buckets() {
+        if (buckets == null) {
+            synchronized (this) {
+                if (buckets == null) {
+                    EnumMap<EndpointClass, Cache<String, TokenBucket>> created = new EnumMap<>(EndpointClass.class);
+                    for (EndpointClass endpointClass : EndpointClass.values()) {
+                        double refillSeconds = capacity(endpointClass) / refillPerSecond(endpointClass);
+                        // A very slow refill rate saturates the cast instead of overflowing the extra millisecond
+                        long refillMillis = (long) Math.ceil(refillSeconds * 1000);
+                        created.put(endpointClass, Caffeine.newBuilder()
+                                .maximumSize(MAX_CLIENTS)
+                                .expireAfterAccess(Duration.ofMillis(Math.min(refillMillis, Long.MAX_VALUE - 1) + 1))
+                                .build());
+                    }
+                    buckets = created;
+                }
+            }
+        }
+        return buckets;
+    }
+}
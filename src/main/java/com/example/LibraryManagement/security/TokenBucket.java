@@ -0,0 +1,60 @@
+package com.example.LibraryManagement.security;
+
+/**
+ * TokenBucket class holds the tokens of one client for one class of endpoints.
+ * The bucket starts full, every request takes one token, and the tokens are refilled continuously at a fixed rate
+ * up to the capacity of the bucket, so a client may burst up to the capacity and then keeps to the refill rate.
+ */
+class TokenBucket {
+    /**
+     * The maximum number of tokens in the bucket.
+     */
+    private final double capacity;
+    /**
+     * The number of tokens added to the bucket every nanosecond.
+     */
+    private final double refillPerNano;
+    /**
+     * The number of tokens in the bucket at the last refill.
+     */
+    private double tokens;
+    /**
+     * The time of the last refill, in nanoseconds.
+     */
+    private long lastRefill;
+
+    /**
+     * Constructor for TokenBucket class.
+     * The bucket starts full.
+     *
+     * @param capacity the maximum number of tokens in the bucket
+     * @param refillPerSecond the number of tokens added to the bucket every second
+     * @param now the current time in nanoseconds, as returned by System.nanoTime()
+     */
+    TokenBucket(double capacity, double refillPerSecond, long now) {
+        this.capacity = capacity;
+        this.refillPerNano = refillPerSecond / 1_000_000_000d;
+        this.tokens = capacity;
+        this.lastRefill = now;
+    }
+
+    /**
+     * Takes a token from the bucket if there is one.
+     *
+     * @param now the current time in nanoseconds, as returned by System.nanoTime()
+     * @return 0 if a token was taken, otherwise the time in nanoseconds until the next token is available
+     */
+    synchronized long tryConsume(long now) {
+        // A concurrent request may have refilled the bucket with a later time already
+        if (now > lastRefill) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerNano);
+            lastRefill = now;
+        }
+
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / refillPerNano);
+    }
+}
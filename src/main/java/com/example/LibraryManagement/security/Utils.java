@@ -1,45 +1,192 @@
 package com.example.LibraryManagement.security;
 
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.util.Base64;
+import java.util.Arrays;
 
 /**
- * The Utils class provides utility security methods
+ * The Utils class provides utility security methods.
+ * The hashing and decoding run on buffers reused by every thread, so a request only allocates the strings it returns.
  */
 public class Utils {
+    /**
+     * The prefix of an Authorization header carrying Basic credentials.
+     */
+    private static final String BASIC_PREFIX = "Basic ";
+    /**
+     * The lowercase hexadecimal digits, indexed by value, as Latin-1 bytes.
+     */
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.ISO_8859_1);
+    /**
+     * The values of the Base64 characters, indexed by character, -1 for the other ASCII characters.
+     */
+    private static final int[] BASE64_VALUES = new int[128];
+
+    static {
+        Arrays.fill(BASE64_VALUES, -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64_VALUES[alphabet.charAt(i)] = i;
+        }
+    }
+
+    /**
+     * The hashing state of every thread, reused instead of looking up a new digest and allocating new buffers for every hash.
+     */
+    private static final ThreadLocal<HashingState> hashingStates = ThreadLocal.withInitial(HashingState::new);
+
     /**
      * Hashes a string using SHA-256.
      */
     public static String hashString(String input) {
-        try {
-            MessageDigest hashingAlgo = MessageDigest.getInstance("SHA-256");
-            byte[] hash = hashingAlgo.digest(input.getBytes());
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) {
-                    hexString.append('0');
-                }
-                hexString.append(hex);
-            }
-            return hexString.toString();
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException(e);
-        }
+        byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+        return hash(hashingStates.get(), bytes, 0, bytes.length);
     }
 
     /**
      * Decodes the Authorization header and returns the username and hashed password.
+     * The password is hashed straight from the decoded bytes, without being copied into a String.
+     *
+     * @return the username and the hashed password, or null if the header does not carry well-formed Basic credentials
      */
     public static String[] decodeAuthHeader(String authHeader) {
-        // Extracting the encoded username and password from the Authorization header
-        String[] credentials = authHeader.split(" ");
-        // Decoding the username and password
-        String[] decodedCredentials = new String(Base64.getDecoder().decode(credentials[1])).split(":");
-        String username = decodedCredentials[0];
+        if (authHeader == null || !authHeader.startsWith(BASIC_PREFIX)) {
+            return null;
+        }
+
+        // Decoding the username and password into the buffer of the thread
+        HashingState state = hashingStates.get();
+        int decodedLength = decodeBase64(authHeader, BASIC_PREFIX.length(), state);
+        if (decodedLength < 0) {
+            return null;
+        }
+        byte[] credentials = state.credentials;
+
+        // The username ends at the first colon, the password may contain more of them
+        int colon = -1;
+        for (int i = 0; i < decodedLength; i++) {
+            if (credentials[i] == ':') {
+                colon = i;
+                break;
+            }
+        }
+        if (colon < 0) {
+            return null;
+        }
+
+        String username = new String(credentials, 0, colon, StandardCharsets.UTF_8);
         // Hashing the password as soon as possible
-        String hashedPassword = hashString(decodedCredentials[1]);
+        String hashedPassword = hash(state, credentials, colon + 1, decodedLength - colon - 1);
+        // Not leaving the password in the buffer of the thread
+        Arrays.fill(credentials, 0, decodedLength, (byte) 0);
         return new String[] { username, hashedPassword };
     }
+
+    /**
+     * Hashes bytes using SHA-256 and encodes the hash as lowercase hexadecimal.
+     *
+     * @param state the hashing state of the current thread
+     * @param bytes the array holding the bytes to hash
+     * @param offset the index of the first byte to hash
+     * @param length the number of bytes to hash
+     * @return the hash as 64 hexadecimal characters
+     */
+    private static String hash(HashingState state, byte[] bytes, int offset, int length) {
+        state.digest.update(bytes, offset, length);
+        try {
+            state.digest.digest(state.hash, 0, state.hash.length);
+        } catch (DigestException e) {
+            throw new RuntimeException(e);
+        }
+
+        for (int i = 0; i < state.hash.length; i++) {
+            state.hex[2 * i] = HEX_DIGITS[(state.hash[i] >> 4) & 0xf];
+            state.hex[2 * i + 1] = HEX_DIGITS[state.hash[i] & 0xf];
+        }
+        // The digits are Latin-1, so the String is created from them without any encoding work
+        return new String(state.hex, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Decodes Base64 characters into the credentials buffer of a hashing state, growing it if needed.
+     *
+     * @param text the string holding the Base64 characters
+     * @param from the index of the first Base64 character, they run to the end of the string
+     * @param state the hashing state of the current thread
+     * @return the number of decoded bytes, or -1 if the characters are not valid Base64
+     */
+    private static int decodeBase64(String text, int from, HashingState state) {
+        int end = text.length();
+        // Dropping the padding, up to two '=' characters at the end
+        for (int padding = 0; padding < 2 && end > from && text.charAt(end - 1) == '='; padding++) {
+            end--;
+        }
+        int length = end - from;
+        if (length % 4 == 1) {
+            return -1;
+        }
+
+        int decodedLength = length / 4 * 3 + Math.max(length % 4 - 1, 0);
+        if (state.credentials.length < decodedLength) {
+            state.credentials = new byte[decodedLength];
+        }
+        byte[] out = state.credentials;
+
+        int bits = 0;
+        int bitCount = 0;
+        int written = 0;
+        for (int i = from; i < end; i++) {
+            char c = text.charAt(i);
+            int value = c < BASE64_VALUES.length ? BASE64_VALUES[c] : -1;
+            if (value < 0) {
+                return -1;
+            }
+            // Only the bits not written yet are kept, at most 14 of them
+            bits = ((bits << 6) | value) & 0x3fff;
+            bitCount += 6;
+            if (bitCount >= 8) {
+                bitCount -= 8;
+                out[written++] = (byte) (bits >> bitCount);
+            }
+        }
+        return written;
+    }
+
+    /**
+     * The SHA-256 digest and the buffers reused by one thread.
+     */
+    private static final class HashingState {
+        /**
+         * The SHA-256 digest of the thread.
+         */
+        private final MessageDigest digest;
+        /**
+         * The buffer receiving the hash.
+         */
+        private final byte[] hash;
+        /**
+         * The buffer receiving the hexadecimal digits of the hash.
+         */
+        private final byte[] hex;
+        /**
+         * The buffer receiving the decoded Basic credentials, grown when longer credentials come in.
+         */
+        private byte[] credentials = new byte[128];
+
+        /**
+         * Constructor for HashingState class.
+         * Looks up the SHA-256 digest and allocates the buffers.
+         */
+        private HashingState() {
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new RuntimeException(e);
+            }
+            hash = new byte[digest.getDigestLength()];
+            hex = new byte[hash.length * 2];
+        }
+    }
 }
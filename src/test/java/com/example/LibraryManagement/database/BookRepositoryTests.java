@@ -0,0 +1,158 @@
+package com.example.LibraryManagement.database;
+
+import com.example.LibraryManagement.models.Book;
+import com.example.LibraryManagement.models.Page;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.assertj.core.api.Assertions.entry;
+
+class BookRepositoryTests {
+
+	@TempDir
+	static Path tempDir;
+
+	private static BookRepository bookRepository;
+
+	@BeforeAll
+	static void setUp() {
+		String dbUrl = "jdbc:sqlite:" + tempDir.resolve("books_test.sqlite");
+		new ConnectionPool(dbUrl, 4, 5000, 64);
+		ConnectionPool.getInstance().close();
+		new DatabaseWriter(100);
+		DatabaseWriter.getInstance().close();
+		new DatabaseInitializer(dbUrl, "fail");
+
+		bookRepository = BookRepository.getInstance();
+		// The cache and index of the singleton may still hold the books of the previous test class's database
+		bookRepository.clearCaches();
+	}
+
+	@AfterAll
+	static void tearDown() {
+		DatabaseWriter.getInstance().close();
+		ConnectionPool.getInstance().close();
+	}
+
+	@Test
+	void searchMatchesPrefixesOfEveryTerm() {
+		bookRepository.addBook(new Book("Harry Potter and the Philosopher's Stone", "J. K. Rowling"));
+		bookRepository.addBook(new Book("Harry Potter and the Chamber of Secrets", "J. K. Rowling"));
+		bookRepository.addBook(new Book("Dirty Harry", "Phillip Rock"));
+
+		assertThat(bookRepository.searchBooks("harr pot", 0, 10).getItems())
+				.extracting(Book::getTitle)
+				.containsExactlyInAnyOrder("Harry Potter and the Philosopher's Stone", "Harry Potter and the Chamber of Secrets");
+		assertThat(bookRepository.searchBooks("rowl chamber", 0, 10).getItems())
+				.extracting(Book::getTitle)
+				.containsExactly("Harry Potter and the Chamber of Secrets");
+	}
+
+	@Test
+	void searchPaginatesByOffset() {
+		for (int i = 1; i <= 5; i++) {
+			bookRepository.addBook(new Book("Paged Volume " + i, "Pager"));
+		}
+
+		Page<Book> firstPage = bookRepository.searchBooks("paged", 0, 3);
+		Page<Book> secondPage = bookRepository.searchBooks("paged", firstPage.getNextCursor(), 3);
+
+		assertThat(firstPage.getItems()).hasSize(3);
+		assertThat(secondPage.getItems()).hasSize(2);
+		assertThat(secondPage.getNextCursor()).isNull();
+	}
+
+	@Test
+	void searchIndexFollowsUpdatesAndDeletes() {
+		bookRepository.addBook(new Book("Original Heading", "Indexer"));
+		int bookId = bookRepository.findBooksByTitle("Original Heading").get(0).getId();
+
+		bookRepository.updateBookById(bookId, new Book("Renamed Heading", null));
+		assertThat(bookRepository.searchBooks("original", 0, 10).getItems()).isEmpty();
+		assertThat(bookRepository.searchBooks("renamed", 0, 10).getItems()).extracting(Book::getId).containsExactly(bookId);
+
+		bookRepository.deleteBookByID(bookId);
+		assertThat(bookRepository.searchBooks("renamed", 0, 10).getItems()).isEmpty();
+	}
+
+	@Test
+	void searchTreatsQuerySyntaxAsText() {
+		assertThat(BookRepository.toMatchQuery("  title:\"foo\"  OR -bar* ")).isEqualTo("\"title:\"* \"foo\"* \"OR\"* \"-bar*\"*");
+		assertThat(bookRepository.searchBooks("title:\"foo\" OR -bar* (", 0, 10).getItems()).isEmpty();
+		assertThat(bookRepository.searchBooks(" \" ", 0, 10).getItems()).isEmpty();
+	}
+
+	@Test
+	void availabilityIndexFollowsAddsUpdatesAndDeletes() {
+		bookRepository.addBook(new Book("Indexed Single", "Bits"));
+		bookRepository.addBooks(List.of(new Book("Indexed Bulk", "Bits"), new Book("Indexed Single", "Bits")).iterator());
+		int single = bookRepository.findBooksByTitle("Indexed Single").get(0).getId();
+		int bulk = bookRepository.findBooksByTitle("Indexed Bulk").get(0).getId();
+
+		assertThat(bookRepository.getAvailability(List.of(single, bulk, -1, 999999)))
+				.containsExactly(entry(single, true), entry(bulk, true), entry(-1, false), entry(999999, false));
+
+		bookRepository.updateBookCopies(single, 0);
+		assertThat(bookRepository.isAvailable(single)).isFalse();
+		bookRepository.updateBookCopies(single, 2);
+		assertThat(bookRepository.isAvailable(single)).isTrue();
+		assertThat(bookRepository.findBookById(single).orElseThrow()).extracting(Book::getCopies, Book::getAvailable).containsExactly(2, 2);
+
+		bookRepository.deleteBookByID(bulk);
+		assertThat(bookRepository.isAvailable(bulk)).isFalse();
+	}
+
+	@Test
+	void readsDoNotWaitForAnUnfinishedWrite() throws Exception {
+		bookRepository.addBook(new Book("Committed Volume", "Journal"));
+		CountDownLatch written = new CountDownLatch(1);
+		CountDownLatch readDone = new CountDownLatch(1);
+
+		// Holding an exclusive lock on the database with an uncommitted insert, which blocks the readers unless WAL is on
+		CompletableFuture<Void> write = DatabaseWriter.getInstance().submit(connection -> {
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("BEGIN EXCLUSIVE");
+				statement.executeUpdate("INSERT INTO books (title, author) VALUES ('Uncommitted Volume', 'Journal')");
+				written.countDown();
+				try {
+					readDone.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				statement.execute("ROLLBACK");
+			}
+			return null;
+		});
+		written.await();
+
+		try {
+			assertTimeoutPreemptively(Duration.ofSeconds(2), () ->
+					assertThat(bookRepository.findBooksByAuthor("Journal")).extracting(Book::getTitle).containsExactly("Committed Volume"));
+		} finally {
+			readDone.countDown();
+			write.join();
+		}
+	}
+
+	@Test
+	void pooledConnectionsRefuseWrites() throws SQLException {
+		try (var connection = ConnectionPool.getInstance().getConnection();
+			 PreparedStatement prepStatement = connection.prepareStatement("DELETE FROM books")) {
+			assertThatThrownBy(prepStatement::executeUpdate).isInstanceOf(SQLException.class);
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package com.example.LibraryManagement.database;
+
+import com.example.LibraryManagement.models.BackupStatus;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DatabaseBackupTests {
+
+	private static final int BOOKS = 2000;
+
+	@TempDir
+	static Path tempDir;
+
+	@BeforeAll
+	static void setUp() {
+		String dbUrl = "jdbc:sqlite:" + tempDir.resolve("backup_test.sqlite");
+		new ConnectionPool(dbUrl, 4, 5000, 64);
+		ConnectionPool.getInstance().close();
+		new DatabaseWriter(100);
+		DatabaseWriter.getInstance().close();
+		new DatabaseInitializer(dbUrl, "fail");
+		// One page per step and no pauses, so the writes below land in the middle of the backup
+		new DatabaseBackup(tempDir.resolve("backups").toString(), 1, 0, 0, 2);
+
+		DatabaseWriter.getInstance().execute(connection -> {
+			connection.setAutoCommit(false);
+			try (PreparedStatement statement = connection.prepareStatement("INSERT INTO books (title, author) VALUES (?, ?)")) {
+				for (int i = 0; i < BOOKS; i++) {
+					statement.setString(1, "Backed Up Title " + i);
+					statement.setString(2, "Author");
+					statement.executeUpdate();
+				}
+			}
+			connection.commit();
+			return null;
+		});
+	}
+
+	@AfterAll
+	static void tearDown() {
+		DatabaseWriter.getInstance().close();
+		ConnectionPool.getInstance().close();
+	}
+
+	@Test
+	void backupCopiesAConsistentSnapshotWhileWritesGoOn() throws Exception {
+		AtomicBoolean backingUp = new AtomicBoolean(true);
+		ExecutorService writer = Executors.newSingleThreadExecutor();
+		Future<Integer> writes = writer.submit(() -> {
+			int written = 0;
+			while (backingUp.get()) {
+				String title = "Written During Backup " + written;
+				DatabaseWriter.getInstance().execute(connection -> {
+					try (PreparedStatement statement = connection.prepareStatement("INSERT INTO books (title, author) VALUES (?, ?)")) {
+						statement.setString(1, title);
+						statement.setString(2, "Author");
+						return statement.executeUpdate();
+					}
+				});
+				written++;
+			}
+			return written;
+		});
+
+		Path file;
+		try {
+			file = DatabaseBackup.getInstance().backup();
+		} finally {
+			backingUp.set(false);
+		}
+		writes.get();
+		writer.shutdown();
+
+		BackupStatus status = DatabaseBackup.getInstance().getStatus();
+		assertThat(status.getRunning()).isFalse();
+		assertThat(status.getPageCount()).isGreaterThan(1);
+		assertThat(status.getRemainingPages()).isZero();
+		assertThat(status.getLastBackupFile()).isEqualTo(file.toString());
+		assertThat(status.getLastError()).isNull();
+
+		try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file);
+			 Statement statement = connection.createStatement()) {
+			try (ResultSet resultSet = statement.executeQuery("PRAGMA integrity_check")) {
+				assertThat(resultSet.next()).isTrue();
+				assertThat(resultSet.getString(1)).isEqualTo("ok");
+			}
+			try (ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM books WHERE title LIKE 'Backed Up Title %'")) {
+				assertThat(resultSet.next()).isTrue();
+				assertThat(resultSet.getInt(1)).isEqualTo(BOOKS);
+			}
+		}
+	}
+
+	@Test
+	void onlyTheNewestBackupsAreKept() throws IOException {
+		for (int i = 0; i < 3; i++) {
+			DatabaseBackup.getInstance().backup();
+		}
+
+		try (Stream<Path> files = Files.list(tempDir.resolve("backups"))) {
+			assertThat(files.map(path -> path.getFileName().toString()).toList())
+					.hasSize(2)
+					.allMatch(name -> name.startsWith("library-") && name.endsWith(".sqlite"));
+		}
+	}
+}
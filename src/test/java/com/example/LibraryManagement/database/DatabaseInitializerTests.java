@@ -0,0 +1,53 @@
+package com.example.LibraryManagement.database;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DatabaseInitializerTests {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void availabilityFlagIsMigratedToCopyCounts() throws SQLException {
+		String dbUrl = "jdbc:sqlite:" + tempDir.resolve("legacy.sqlite");
+		try (Connection connection = DriverManager.getConnection(dbUrl);
+			 Statement statement = connection.createStatement()) {
+			statement.execute("""
+					CREATE TABLE books (
+					    id INTEGER PRIMARY KEY AUTOINCREMENT,
+					    title TEXT NOT NULL,
+					    author TEXT NOT NULL,
+					    availability BOOLEAN DEFAULT 1,
+					    UNIQUE (title, author) ON CONFLICT IGNORE
+					)
+					""");
+			statement.execute("INSERT INTO books (title, author, availability) VALUES ('On Shelf', 'Old', 1), ('Rented', 'Old', 0)");
+		}
+
+		new DatabaseInitializer(dbUrl, "fail");
+		// Running again on the migrated table is a no-op
+		new DatabaseInitializer(dbUrl, "fail");
+
+		try (Connection connection = DriverManager.getConnection(dbUrl);
+			 Statement statement = connection.createStatement();
+			 ResultSet resultSet = statement.executeQuery("SELECT * FROM books ORDER BY id")) {
+			assertThat(resultSet.getMetaData().getColumnCount()).isEqualTo(5);
+			assertThat(resultSet.next()).isTrue();
+			assertThat(resultSet.getInt("copies")).isEqualTo(1);
+			assertThat(resultSet.getInt("available")).isEqualTo(1);
+			assertThat(resultSet.next()).isTrue();
+			assertThat(resultSet.getInt("copies")).isEqualTo(1);
+			assertThat(resultSet.getInt("available")).isZero();
+		}
+	}
+}
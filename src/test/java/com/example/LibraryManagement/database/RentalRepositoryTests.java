@@ -0,0 +1,184 @@
+package com.example.LibraryManagement.database;
+
+import com.example.LibraryManagement.models.Book;
+import com.example.LibraryManagement.models.Rental;
+import com.example.LibraryManagement.models.RentalOutcome;
+import com.example.LibraryManagement.models.User;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RentalRepositoryTests {
+
+	private static final int RENTERS = 8;
+
+	@TempDir
+	static Path tempDir;
+
+	private static BookRepository bookRepository;
+	private static UserRepository userRepository;
+	private static RentalRepository rentalRepository;
+
+	@BeforeAll
+	static void setUp() {
+		String dbUrl = "jdbc:sqlite:" + tempDir.resolve("rentals_test.sqlite");
+		new ConnectionPool(dbUrl, RENTERS, 5000, 64);
+		ConnectionPool.getInstance().close();
+		new DatabaseWriter(100);
+		DatabaseWriter.getInstance().close();
+		new DatabaseInitializer(dbUrl, "fail");
+
+		bookRepository = BookRepository.getInstance();
+		// The cache and index of the singleton may still hold the books of the previous test class's database
+		bookRepository.clearCaches();
+		userRepository = UserRepository.getInstance();
+		rentalRepository = RentalRepository.getInstance();
+
+		for (int i = 1; i <= RENTERS; i++) {
+			userRepository.registerUser(new User("renter" + i, "hash", false));
+		}
+	}
+
+	@AfterAll
+	static void tearDown() {
+		DatabaseWriter.getInstance().close();
+		ConnectionPool.getInstance().close();
+	}
+
+	@Test
+	void concurrentRentersCannotBothRentTheSameBook() throws Exception {
+		bookRepository.addBook(new Book("Contested", "Author"));
+		int bookId = bookRepository.findBooksByTitle("Contested").get(0).getId();
+
+		ExecutorService executor = Executors.newFixedThreadPool(RENTERS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Boolean>> results = new ArrayList<>();
+		for (int userId = 1; userId <= RENTERS; userId++) {
+			Rental rental = new Rental(bookId, userId);
+			results.add(executor.submit(() -> {
+				start.await();
+				return rentalRepository.rentBook(rental);
+			}));
+		}
+		start.countDown();
+
+		int successes = 0;
+		for (Future<Boolean> result : results) {
+			if (result.get()) successes++;
+		}
+		executor.shutdown();
+
+		assertThat(successes).isEqualTo(1);
+		assertThat(rentalRepository.getAllRentals()).filteredOn(rental -> rental.getBookId() == bookId).hasSize(1);
+		assertThat(bookRepository.isAvailable(bookId)).isFalse();
+	}
+
+	@Test
+	void returnBookReleasesTheBookOnlyOnce() {
+		bookRepository.addBook(new Book("Returned", "Author"));
+		int bookId = bookRepository.findBooksByTitle("Returned").get(0).getId();
+		Rental rental = new Rental(bookId, 1);
+
+		assertThat(rentalRepository.rentBook(rental)).isTrue();
+		assertThat(rentalRepository.returnBook(rental)).isTrue();
+		assertThat(rentalRepository.returnBook(rental)).isFalse();
+		assertThat(bookRepository.isAvailable(bookId)).isTrue();
+	}
+
+	@Test
+	void rentBookFailsForUnknownUser() {
+		bookRepository.addBook(new Book("Orphan", "Author"));
+		int bookId = bookRepository.findBooksByTitle("Orphan").get(0).getId();
+
+		assertThat(rentalRepository.rentBook(new Rental(bookId, 9999))).isFalse();
+		assertThat(bookRepository.isAvailable(bookId)).isTrue();
+	}
+
+	@Test
+	void batchRentAndReturnReportEveryBook() {
+		bookRepository.addBook(new Book("Batch One", "Author"));
+		bookRepository.addBook(new Book("Batch Two", "Author"));
+		int first = bookRepository.findBooksByTitle("Batch One").get(0).getId();
+		int second = bookRepository.findBooksByTitle("Batch Two").get(0).getId();
+		assertThat(rentalRepository.rentBook(new Rental(second, 2))).isTrue();
+
+		assertThat(rentalRepository.rentBooks(1, List.of(first, second, 9999)))
+				.extracting(RentalOutcome::getStatus)
+				.containsExactly(RentalOutcome.Status.RENTED, RentalOutcome.Status.UNAVAILABLE, RentalOutcome.Status.UNAVAILABLE);
+		assertThat(bookRepository.isAvailable(first)).isFalse();
+
+		assertThat(rentalRepository.returnBooks(1, List.of(first, second)))
+				.extracting(RentalOutcome::getStatus)
+				.containsExactly(RentalOutcome.Status.RETURNED, RentalOutcome.Status.NOT_RENTED);
+		assertThat(bookRepository.isAvailable(first)).isTrue();
+		assertThat(bookRepository.isAvailable(second)).isFalse();
+	}
+
+	@Test
+	void rentalsAreLookedUpByUserAndByBook() {
+		bookRepository.addBook(new Book("Lookup One", "Author"));
+		bookRepository.addBook(new Book("Lookup Two", "Author"));
+		int first = bookRepository.findBooksByTitle("Lookup One").get(0).getId();
+		int second = bookRepository.findBooksByTitle("Lookup Two").get(0).getId();
+		userRepository.registerUser(new User("lookup", "hash", false));
+		int userId = userRepository.authenticateUser("lookup", "hash").orElseThrow().getId();
+		assertThat(rentalRepository.rentBooks(userId, List.of(second, first)))
+				.extracting(RentalOutcome::getStatus)
+				.containsOnly(RentalOutcome.Status.RENTED);
+
+		assertThat(rentalRepository.findRentalsByUserId(userId)).extracting(Rental::getBookId).containsExactly(first, second);
+		assertThat(rentalRepository.findRentalsByBookId(second)).extracting(Rental::getUserId).containsExactly(userId);
+		assertThat(rentalRepository.findRentalsByUserId(9999)).isEmpty();
+		assertThat(rentalRepository.existsRental(new Rental(first, userId))).isTrue();
+		assertThat(rentalRepository.existsRental(new Rental(first, 9999))).isFalse();
+	}
+
+	@Test
+	void copiesAreRentedAndReturnedOneAtATime() throws Exception {
+		bookRepository.addBook(new Book("Bestseller", "Author", 3));
+		int bookId = bookRepository.findBooksByTitle("Bestseller").get(0).getId();
+
+		ExecutorService executor = Executors.newFixedThreadPool(RENTERS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Boolean>> results = new ArrayList<>();
+		for (int userId = 1; userId <= RENTERS; userId++) {
+			Rental rental = new Rental(bookId, userId);
+			results.add(executor.submit(() -> {
+				start.await();
+				return rentalRepository.rentBook(rental);
+			}));
+		}
+		start.countDown();
+
+		List<Integer> renters = new ArrayList<>();
+		for (int userId = 1; userId <= RENTERS; userId++) {
+			if (results.get(userId - 1).get()) renters.add(userId);
+		}
+		executor.shutdown();
+
+		assertThat(renters).hasSize(3);
+		assertThat(bookRepository.findBookById(bookId).orElseThrow().getAvailable()).isZero();
+		assertThat(bookRepository.isAvailable(bookId)).isFalse();
+		// A copy cannot be taken from under the renters by shrinking the stock
+		assertThat(bookRepository.updateBookCopies(bookId, 2)).isFalse();
+
+		assertThat(rentalRepository.returnBook(new Rental(bookId, renters.get(0)))).isTrue();
+		assertThat(bookRepository.isAvailable(bookId)).isTrue();
+		// A user rents at most one copy of a book
+		assertThat(rentalRepository.rentBooks(renters.get(1), List.of(bookId)))
+				.extracting(RentalOutcome::getStatus)
+				.containsExactly(RentalOutcome.Status.UNAVAILABLE);
+		assertThat(bookRepository.findBookById(bookId).orElseThrow().getAvailable()).isEqualTo(1);
+	}
+}
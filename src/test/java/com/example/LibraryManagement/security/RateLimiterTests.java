@@ -0,0 +1,18 @@
+package com.example.LibraryManagement.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RateLimiterTests {
+
+	@Test
+	void limitsThatWouldNeverRefillAreRejectedAtStartup() {
+		assertThatThrownBy(() -> new RateLimiter(true, 100, 20, 2, 50, 0, 5, 0.1))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("api.rate-limit.book-writes.refill-per-second");
+		assertThatThrownBy(() -> new RateLimiter(true, 100, 0, 2, 50, 10, 5, 0.1))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("api.rate-limit.rentals.capacity");
+	}
+}
@@ -0,0 +1,33 @@
+package com.example.LibraryManagement.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTests {
+
+	private static final long SECOND = 1_000_000_000L;
+
+	@Test
+	void burstsUpToCapacityAndThenKeepsToTheRefillRate() {
+		TokenBucket bucket = new TokenBucket(3, 2, 0);
+
+		for (int i = 0; i < 3; i++) {
+			assertThat(bucket.tryConsume(0)).isZero();
+		}
+		// The next token comes after half a second
+		assertThat(bucket.tryConsume(0)).isEqualTo(SECOND / 2);
+		assertThat(bucket.tryConsume(SECOND / 4)).isEqualTo(SECOND / 4);
+		assertThat(bucket.tryConsume(SECOND / 2)).isZero();
+		assertThat(bucket.tryConsume(SECOND / 2)).isPositive();
+
+		// An idle bucket refills up to its capacity only
+		long later = 100 * SECOND;
+		for (int i = 0; i < 3; i++) {
+			assertThat(bucket.tryConsume(later)).isZero();
+		}
+		assertThat(bucket.tryConsume(later)).isPositive();
+		// A request timed before the last refill doesn't take tokens back
+		assertThat(bucket.tryConsume(later - SECOND)).isEqualTo(SECOND / 2);
+	}
+}